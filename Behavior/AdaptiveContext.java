@@ -0,0 +1,402 @@
+package com.cqupt.mauger.behavior;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应封装类
+ * 	Context 的自调优模式：持有多个策略，在线测量每个策略的延迟，把 excute() 路由到当前最快的策略。
+ *
+ * 实现：
+ * 	1）epsilon-greedy：以 epsilon 的概率随机选择一个策略（探索），否则选择延迟指数移动平均值最小的策略（利用）。
+ * 	2）定期重新探索：每隔 reexplorePeriod 依次把每个策略各执行一次，策略的性能发生变化时能被重新发现。
+ * 	3）热替换：策略列表与缓存的最快策略放在同一个不可变的 State 中，替换时整体换掉，调用路径上没有锁。
+ * 	       更新最快策略时对读到的 State 做 CAS，State 已被替换时放弃本次更新，不会把已移除的策略写回。
+ * 	4）统计数据用 LongAdder 和 CAS 更新，并发调用时只会丢失个别样本，不会阻塞。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class AdaptiveContext extends Context
+{
+	/** 指数移动平均的平滑系数 */
+	private static final double ALPHA = 0.1;
+
+	private final double epsilon;
+	private final long reexplorePeriodNanos;
+
+	private final AtomicReference<State> state = new AtomicReference<State>();
+	private final AtomicLong nextReexplore;
+	private final AtomicInteger reexploreRemaining = new AtomicInteger();
+
+	/**
+	 * 探索概率 5%，每秒重新探索一次
+	 */
+	public AdaptiveContext(Strategy... strategies)
+	{
+		this(0.05, 1, TimeUnit.SECONDS, strategies);
+	}
+
+	/**
+	 * @param epsilon 探索概率，取值 0~1
+	 * @param reexplorePeriod 重新探索的周期
+	 * @param unit 周期单位
+	 * @param strategies 候选策略，至少一个
+	 */
+	public AdaptiveContext(double epsilon, long reexplorePeriod, TimeUnit unit, Strategy... strategies)
+	{
+		super(first(strategies));
+		this.epsilon = epsilon;
+		this.reexplorePeriodNanos = unit.toNanos(reexplorePeriod);
+		this.nextReexplore = new AtomicLong(System.nanoTime() + reexplorePeriodNanos);
+		setStrategies(strategies);
+	}
+
+	@Override
+	public void excute()
+	{
+		State current = state.get();
+		Arm arm = choose(current);
+		long t0 = System.nanoTime();
+		arm.strategy.doSomething();
+		long t1 = System.nanoTime();
+		arm.record(t1 - t0);
+		if (t1 - nextReexplore.get() > 0)
+		{
+			long next = nextReexplore.get();
+			if (t1 - next > 0 && nextReexplore.compareAndSet(next, t1 + reexplorePeriodNanos))
+			{
+				reexploreRemaining.set(current.arms.length);
+			}
+		}
+	}
+
+	private Arm choose(State current)
+	{
+		Arm[] arms = current.arms;
+		if (reexploreRemaining.get() > 0)
+		{
+			int remaining = reexploreRemaining.getAndDecrement();
+			if (remaining > 0)
+			{
+				return arms[(remaining - 1) % arms.length];
+			}
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (random.nextDouble() < epsilon)
+		{
+			return arms[random.nextInt(arms.length)];
+		}
+		Arm chosen = current.best;
+		// 每 64 次调用左右重新比较一次，其余时间直接使用缓存的最快策略
+		if (chosen == null || (random.nextInt() & 63) == 0)
+		{
+			chosen = fastest(arms);
+			if (chosen != current.best)
+			{
+				state.compareAndSet(current, new State(arms, chosen)); // 失败说明策略列表已被替换
+			}
+		}
+		return chosen;
+	}
+
+	/**
+	 * 还没有样本的策略优先，其余按延迟指数移动平均值选最小
+	 */
+	private static Arm fastest(Arm[] current)
+	{
+		Arm chosen = current[0];
+		double min = Double.MAX_VALUE;
+		for (Arm arm : current)
+		{
+			if (arm.calls.sum() == 0)
+			{
+				return arm;
+			}
+			double ewma = arm.ewma();
+			if (ewma < min)
+			{
+				min = ewma;
+				chosen = arm;
+			}
+		}
+		return chosen;
+	}
+
+	/**
+	 * 替换全部候选策略，已有策略的统计数据保留
+	 * @param strategies 候选策略，至少一个
+	 */
+	public synchronized void setStrategies(Strategy... strategies)
+	{
+		first(strategies);
+		State current = state.get();
+		Arm[] old = current == null ? new Arm[0] : current.arms;
+		Arm[] next = new Arm[strategies.length];
+		for (int i = 0; i < strategies.length; i++)
+		{
+			next[i] = new Arm(strategies[i]);
+			for (Arm arm : old)
+			{
+				if (arm.strategy == strategies[i])
+				{
+					next[i] = arm;
+				}
+			}
+		}
+		state.set(new State(next, null));
+	}
+
+	/**
+	 * 增加一个候选策略
+	 */
+	public synchronized void addStrategy(Strategy strategy)
+	{
+		List<Strategy> strategies = new ArrayList<Strategy>(getStrategies());
+		strategies.add(strategy);
+		setStrategies(strategies.toArray(new Strategy[0]));
+	}
+
+	/**
+	 * 移除一个候选策略，不能移除最后一个
+	 */
+	public synchronized void removeStrategy(Strategy strategy)
+	{
+		List<Strategy> strategies = new ArrayList<Strategy>(getStrategies());
+		strategies.remove(strategy);
+		setStrategies(strategies.toArray(new Strategy[0]));
+	}
+
+	public List<Strategy> getStrategies()
+	{
+		Arm[] current = state.get().arms;
+		List<Strategy> strategies = new ArrayList<Strategy>(current.length);
+		for (Arm arm : current)
+		{
+			strategies.add(arm.strategy);
+		}
+		return Collections.unmodifiableList(strategies);
+	}
+
+	/**
+	 * 当前选中的（延迟最小的）策略
+	 */
+	public Strategy getChosenStrategy()
+	{
+		return fastest(state.get().arms).strategy;
+	}
+
+	/**
+	 * 各策略的延迟统计
+	 */
+	public List<StrategyStats> getStats()
+	{
+		Arm[] current = state.get().arms;
+		List<StrategyStats> stats = new ArrayList<StrategyStats>(current.length);
+		for (Arm arm : current)
+		{
+			long calls = arm.calls.sum();
+			stats.add(new StrategyStats(arm.strategy, calls, calls == 0 ? 0 : arm.totalNanos.sum() / (double) calls, arm.ewma()));
+		}
+		return stats;
+	}
+
+	private static Strategy first(Strategy[] strategies)
+	{
+		if (strategies == null || strategies.length == 0)
+		{
+			throw new IllegalArgumentException("至少需要一个策略");
+		}
+		return strategies[0];
+	}
+
+	/**
+	 * 候选策略与缓存的最快策略，不可变
+	 */
+	private static final class State
+	{
+		final Arm[] arms;
+		final Arm best;
+
+		State(Arm[] arms, Arm best)
+		{
+			this.arms = arms;
+			this.best = best;
+		}
+	}
+
+	/**
+	 * 候选策略及其统计数据
+	 */
+	private static final class Arm
+	{
+		final Strategy strategy;
+		final LongAdder calls = new LongAdder();
+		final LongAdder totalNanos = new LongAdder();
+		final AtomicLong ewmaBits = new AtomicLong(Double.doubleToRawLongBits(-1));
+
+		Arm(Strategy strategy)
+		{
+			this.strategy = strategy;
+		}
+
+		void record(long nanos)
+		{
+			calls.increment();
+			totalNanos.add(nanos);
+			long bits = ewmaBits.get();
+			double ewma = Double.longBitsToDouble(bits);
+			double next = ewma < 0 ? nanos : ewma + ALPHA * (nanos - ewma);
+			ewmaBits.compareAndSet(bits, Double.doubleToRawLongBits(next)); // 失败说明有并发更新，丢弃本样本
+		}
+
+		double ewma()
+		{
+			double ewma = Double.longBitsToDouble(ewmaBits.get());
+			return ewma < 0 ? Double.MAX_VALUE : ewma;
+		}
+	}
+
+	/**
+	 * 单个策略的延迟统计
+	 */
+	public static final class StrategyStats
+	{
+		private final Strategy strategy;
+		private final long calls;
+		private final double meanNanos;
+		private final double ewmaNanos;
+
+		StrategyStats(Strategy strategy, long calls, double meanNanos, double ewmaNanos)
+		{
+			this.strategy = strategy;
+			this.calls = calls;
+			this.meanNanos = meanNanos;
+			this.ewmaNanos = ewmaNanos;
+		}
+
+		public Strategy getStrategy()
+		{
+			return strategy;
+		}
+
+		public long getCalls()
+		{
+			return calls;
+		}
+
+		public double getMeanNanos()
+		{
+			return meanNanos;
+		}
+
+		/** 延迟的指数移动平均值，没有样本时为 Double.MAX_VALUE */
+		public double getEwmaNanos()
+		{
+			return ewmaNanos;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("%s[calls=%d, mean=%.0fns, ewma=%.0fns]", strategy.getClass().getSimpleName(), calls,
+					meanNanos, ewmaNanos == Double.MAX_VALUE ? -1 : ewmaNanos);
+		}
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class AdaptiveContextTest
+{
+	/**
+	 * 忙等待指定时间的策略，用于模拟不同耗时
+	 */
+	static class SpinStrategy implements Strategy
+	{
+		private final long nanos;
+
+		SpinStrategy(long nanos)
+		{
+			this.nanos = nanos;
+		}
+
+		public void doSomething()
+		{
+			long end = System.nanoTime() + nanos;
+			while (System.nanoTime() < end)
+			{
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		Strategy slow = new SpinStrategy(20000);
+		Strategy fast = new SpinStrategy(1000);
+		AdaptiveContext context = new AdaptiveContext(0.05, 50, TimeUnit.MILLISECONDS, slow, fast);
+		for (int i = 0; i < 5000; i++)
+		{
+			context.excute();
+		}
+		System.out.println(context.getChosenStrategy() == fast); // 返回 true
+		System.out.println(Arrays.toString(context.getStats().toArray()));
+
+		// 热替换：加入更快的策略后会被选中
+		Strategy faster = new SpinStrategy(0);
+		context.addStrategy(faster);
+		for (int i = 0; i < 5000; i++)
+		{
+			context.excute();
+		}
+		System.out.println(context.getChosenStrategy() == faster); // 返回 true
+		System.out.println(Arrays.toString(context.getStats().toArray()));
+
+		// 移除正在被选中的策略：另一个线程仍在调用时，移除之后不会再路由到它
+		final AtomicInteger removedCalls = new AtomicInteger();
+		final AtomicInteger phase = new AtomicInteger();
+		Strategy removed = () -> removedCalls.addAndGet(phase.get());
+		final AdaptiveContext racing = new AdaptiveContext(0, 1, TimeUnit.HOURS, fast, removed);
+		Thread caller = new Thread(() -> {
+			while (phase.get() < 2)
+			{
+				racing.excute();
+			}
+		});
+		caller.start();
+		for (int i = 0; i < 5000; i++)
+		{
+			racing.excute();
+		}
+		racing.removeStrategy(removed);
+		phase.set(1); // 此后调用 removed 会被计数
+		for (int i = 0; i < 5000; i++)
+		{
+			racing.excute();
+		}
+		phase.set(2);
+		try
+		{
+			caller.join();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		System.out.println(removedCalls.get() <= 1); // 返回 true，至多是移除时另一个线程正在进行的那一次调用
+	}
+}
@@ -0,0 +1,123 @@
+package com.cqupt.mauger.behavior;
+
+/**
+ * 批量策略
+ * 	一次调用处理一批工作项，把每次调用的虚方法分派与分配开销摊到整批上。
+ * 	已有的单项策略可以通过 BatchStrategy.of(strategy) 适配为批量策略，每个工作项调用一次 doSomething()。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public interface BatchStrategy<T>
+{
+	/**
+	 * 处理 items[from, to) 中的工作项
+	 * @param items 工作项
+	 * @param from 起始下标（包含）
+	 * @param to 结束下标（不包含）
+	 */
+	public void doBatch(T[] items, int from, int to);
+
+	/**
+	 * 将单项策略适配为批量策略
+	 * @param strategy 单项策略
+	 * @return 批量策略
+	 */
+	public static <T> BatchStrategy<T> of(Strategy strategy)
+	{
+		return new StrategyBatchAdapter<T>(strategy);
+	}
+}
+
+
+/**
+ * 单项策略到批量策略的适配器
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class StrategyBatchAdapter<T> implements BatchStrategy<T>
+{
+	private final Strategy strategy;
+
+	StrategyBatchAdapter(Strategy strategy)
+	{
+		this.strategy = strategy;
+	}
+
+	public void doBatch(T[] items, int from, int to)
+	{
+		Strategy s = strategy;
+		for (int i = from; i < to; i++)
+		{
+			s.doSomething();
+		}
+	}
+
+	public Strategy getStrategy()
+	{
+		return strategy;
+	}
+}
+
+
+/**
+ * 批量封装类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class BatchContext<T>
+{
+	private BatchStrategy<T> strategy;
+
+	public BatchContext(BatchStrategy<T> strategy)
+	{
+		this.strategy = strategy;
+	}
+
+	/**
+	 * 使用单项策略，每个工作项调用一次 doSomething()
+	 */
+	public BatchContext(Strategy strategy)
+	{
+		this(BatchStrategy.<T>of(strategy));
+	}
+
+	public void excute(T[] items)
+	{
+		strategy.doBatch(items, 0, items.length);
+	}
+
+	public void excute(T[] items, int from, int to)
+	{
+		strategy.doBatch(items, from, to);
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class BatchStrategyTest
+{
+	public static void main(String[] args)
+	{
+		String[] items = { "a", "b", "c" };
+
+		System.out.println("单项策略适配为批量策略：");
+		new BatchContext<String>(new StrategyA()).excute(items);
+
+		System.out.println("批量策略：");
+		new BatchContext<String>((batch, from, to) -> {
+			for (int i = from; i < to; i++)
+			{
+				System.out.println("处理 " + batch[i]);
+			}
+		}).excute(items, 1, 3);
+	}
+}
@@ -0,0 +1,524 @@
+package com.cqupt.mauger.behavior;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 命令模式 Command Pattern
+ *
+ * 类型：
+ * 	行为型模式
+ *
+ * 定义：
+ * 	将一个请求封装为一个对象，从而可以用不同的请求对客户进行参数化，对请求排队或记录请求日志，以及支持可撤销的操作。
+ * 	这里的请求是一次 Context.excute()：调用方把它封装为命令提交给执行器，由执行器排队并在线程池上执行，调用方不再同步等待。
+ *
+ * 实现：
+ * 	1）按策略类型分队：每种策略类型一个无锁队列，同一类型的命令在同一批中连续执行，调用点保持单态，代码与数据都更容易命中缓存。
+ * 	2）批量执行：队列从空变为非空时向 ForkJoinPool（工作窃取）提交一个排空任务，它一次最多执行 maxBatch 个命令；
+ * 	       队列中还有命令时重新提交自己，让其他类型的队列也有机会执行。
+ * 	       线程池必须是 asyncMode（工作线程本地队列先进先出）：默认模式下本地队列后进先出，
+ * 	       工作线程重新提交的排空任务会被它立即取回执行，其他类型的队列一直得不到执行。
+ * 	3）背压：所有队列共享 capacity 个名额，execute/submit 在名额用完时阻塞等待，tryExecute 直接返回 false。
+ * 	4）提交方式：execute/tryExecute 不关心结果，失败交给 errorHandler；submit 返回 CompletableFuture，失败时以异常完成。
+ * 	5）关闭：close() 与提交并发时，线程池可能在命令入队后才拒绝排空任务，此时撤回该命令、归还名额并抛出 RejectedExecutionException。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class CommandExecutor implements AutoCloseable
+{
+	private final ForkJoinPool pool;
+	private final boolean ownsPool;
+	private final int maxBatch;
+	private final Semaphore permits;
+	private final int capacity;
+	private final Consumer<Throwable> errorHandler;
+	private final ConcurrentMap<Class<?>, TypeQueue> queues = new ConcurrentHashMap<Class<?>, TypeQueue>();
+	private volatile boolean closed;
+
+	private final LongAdder submitted = new LongAdder();
+	private final LongAdder executed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+
+	/**
+	 * 使用与处理器数量相同并行度的新线程池（asyncMode），最多 10000 个待执行命令，每批最多 64 个
+	 */
+	public CommandExecutor()
+	{
+		this(new ForkJoinPool(Runtime.getRuntime().availableProcessors(), ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+				null, true), true, 10000, 64, Throwable::printStackTrace);
+	}
+
+	/**
+	 * @param pool 执行命令的线程池，必须以 asyncMode 创建，见类注释
+	 * @param capacity 待执行命令的上限
+	 * @param maxBatch 每批最多执行的命令数
+	 * @param errorHandler 处理 execute/tryExecute 提交的命令抛出的异常
+	 */
+	public CommandExecutor(ForkJoinPool pool, int capacity, int maxBatch, Consumer<Throwable> errorHandler)
+	{
+		this(pool, false, capacity, maxBatch, errorHandler);
+	}
+
+	private CommandExecutor(ForkJoinPool pool, boolean ownsPool, int capacity, int maxBatch,
+			Consumer<Throwable> errorHandler)
+	{
+		if (capacity <= 0 || maxBatch <= 0)
+		{
+			throw new IllegalArgumentException("命令执行器配置错误");
+		}
+		this.pool = pool;
+		this.ownsPool = ownsPool;
+		this.capacity = capacity;
+		this.permits = new Semaphore(capacity);
+		this.maxBatch = maxBatch;
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * 提交命令，不关心结果；待执行命令达到上限时阻塞
+	 */
+	public void execute(Context context) throws InterruptedException
+	{
+		acquire();
+		enqueue(new Command(context, null));
+	}
+
+	/**
+	 * 提交命令，不关心结果；待执行命令达到上限时立即返回 false
+	 */
+	public boolean tryExecute(Context context)
+	{
+		checkOpen();
+		if (!permits.tryAcquire())
+		{
+			rejected.increment();
+			return false;
+		}
+		enqueue(new Command(context, null));
+		return true;
+	}
+
+	/**
+	 * 提交命令并返回 future；待执行命令达到上限时阻塞
+	 */
+	public CompletableFuture<Void> submit(Context context) throws InterruptedException
+	{
+		acquire();
+		CompletableFuture<Void> future = new CompletableFuture<Void>();
+		enqueue(new Command(context, future));
+		return future;
+	}
+
+	/**
+	 * 提交命令并返回 future；等待名额超过 timeout 时抛出 RejectedExecutionException
+	 */
+	public CompletableFuture<Void> submit(Context context, long timeout, TimeUnit unit) throws InterruptedException
+	{
+		checkOpen();
+		if (!permits.tryAcquire(timeout, unit))
+		{
+			rejected.increment();
+			throw new RejectedExecutionException("待执行命令已达上限：" + capacity);
+		}
+		CompletableFuture<Void> future = new CompletableFuture<Void>();
+		enqueue(new Command(context, future));
+		return future;
+	}
+
+	private void acquire() throws InterruptedException
+	{
+		checkOpen();
+		permits.acquire();
+	}
+
+	private void checkOpen()
+	{
+		if (closed)
+		{
+			throw new RejectedExecutionException("命令执行器已关闭");
+		}
+	}
+
+	private void enqueue(Command command)
+	{
+		submitted.increment();
+		Class<?> type = command.context.getStrategy().getClass();
+		TypeQueue queue = queues.get(type);
+		if (queue == null)
+		{
+			queue = queues.computeIfAbsent(type, k -> new TypeQueue());
+		}
+		queue.commands.offer(command);
+		queue.size.incrementAndGet();
+		try
+		{
+			queue.schedule();
+		} catch (RejectedExecutionException e)
+		{
+			// 线程池已关闭：命令还在队列中时撤回它，否则它已经被其他排空任务执行
+			if (queue.commands.remove(command))
+			{
+				queue.size.decrementAndGet();
+				submitted.decrement();
+				rejected.increment();
+				permits.release();
+				throw e;
+			}
+		}
+	}
+
+	/** 待执行的命令数 */
+	public int getPending()
+	{
+		return capacity - permits.availablePermits();
+	}
+
+	public long getSubmitted()
+	{
+		return submitted.sum();
+	}
+
+	public long getExecuted()
+	{
+		return executed.sum();
+	}
+
+	public long getFailed()
+	{
+		return failed.sum();
+	}
+
+	/** 被拒绝的提交数：名额用完，或线程池已关闭 */
+	public long getRejected()
+	{
+		return rejected.sum();
+	}
+
+	public long getBatches()
+	{
+		return batches.sum();
+	}
+
+	public double getAverageBatchSize()
+	{
+		long b = batches.sum();
+		return b == 0 ? 0 : (double) executed.sum() / b;
+	}
+
+	/**
+	 * 等待所有已提交的命令执行完毕
+	 * @return 超时前全部执行完毕返回 true
+	 */
+	public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (getPending() > 0)
+		{
+			if (System.nanoTime() - deadline > 0)
+			{
+				return false;
+			}
+			TimeUnit.MILLISECONDS.sleep(1);
+		}
+		return true;
+	}
+
+	/**
+	 * 不再接受新命令，等待已提交的命令执行完毕；线程池由本执行器创建时一并关闭
+	 */
+	@Override
+	public void close()
+	{
+		closed = true;
+		try
+		{
+			awaitIdle(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		if (ownsPool)
+		{
+			pool.shutdown();
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("CommandExecutor[types=%d, pending=%d, submitted=%d, executed=%d, failed=%d, rejected=%d, avgBatch=%.1f]",
+				queues.size(), getPending(), getSubmitted(), getExecuted(), getFailed(), getRejected(), getAverageBatchSize());
+	}
+
+	/**
+	 * 命令：一次 Context.excute()
+	 */
+	private static final class Command
+	{
+		final Context context;
+		final CompletableFuture<Void> future;
+
+		Command(Context context, CompletableFuture<Void> future)
+		{
+			this.context = context;
+			this.future = future;
+		}
+	}
+
+	/**
+	 * 一种策略类型的命令队列
+	 */
+	private final class TypeQueue implements Runnable
+	{
+		final Queue<Command> commands = new ConcurrentLinkedQueue<Command>();
+		final AtomicInteger size = new AtomicInteger();
+		final AtomicBoolean scheduled = new AtomicBoolean();
+
+		/**
+		 * @throws RejectedExecutionException 线程池已关闭，scheduled 已复位
+		 */
+		void schedule()
+		{
+			if (scheduled.compareAndSet(false, true))
+			{
+				try
+				{
+					pool.execute(this);
+				} catch (RejectedExecutionException e)
+				{
+					scheduled.set(false);
+					throw e;
+				}
+			}
+		}
+
+		/**
+		 * 排空任务：执行一批命令
+		 */
+		public void run()
+		{
+			int n = 0;
+			Command command;
+			while (n < maxBatch && (command = commands.poll()) != null)
+			{
+				size.decrementAndGet();
+				n++;
+				try
+				{
+					command.context.excute();
+					if (command.future != null)
+					{
+						command.future.complete(null);
+					}
+				} catch (Throwable e)
+				{
+					failed.increment();
+					if (command.future != null)
+					{
+						command.future.completeExceptionally(e);
+					}
+					else
+					{
+						errorHandler.accept(e);
+					}
+				} finally
+				{
+					executed.increment();
+					permits.release();
+				}
+			}
+			if (n > 0)
+			{
+				batches.increment();
+			}
+			scheduled.set(false);
+			if (size.get() > 0)
+			{
+				try
+				{
+					schedule(); // 还有命令，排到其他类型之后继续执行
+				} catch (RejectedExecutionException e)
+				{
+					rejectRemaining(e);
+				}
+			}
+		}
+
+		/**
+		 * 线程池已关闭，剩下的命令不会再执行：以异常结束它们并归还名额
+		 */
+		private void rejectRemaining(RejectedExecutionException e)
+		{
+			Command command;
+			while ((command = commands.poll()) != null)
+			{
+				size.decrementAndGet();
+				rejected.increment();
+				permits.release();
+				if (command.future != null)
+				{
+					command.future.completeExceptionally(e);
+				}
+				else
+				{
+					errorHandler.accept(e);
+				}
+			}
+		}
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class CommandExecutorTest
+{
+	static class CountingA implements Strategy
+	{
+		final LongAdder count = new LongAdder();
+
+		public void doSomething()
+		{
+			count.increment();
+		}
+	}
+
+	static class CountingB extends CountingA {}
+
+	static class Failing implements Strategy
+	{
+		public void doSomething()
+		{
+			throw new IllegalStateException("执行失败");
+		}
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		final LongAdder errors = new LongAdder();
+		ForkJoinPool pool = new ForkJoinPool(4, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+		try (final CommandExecutor executor = new CommandExecutor(pool, 1000, 64, e -> errors.increment()))
+		{
+			final CountingA a = new CountingA();
+			final CountingB b = new CountingB();
+			final Context contextA = new Context(a);
+			final Context contextB = new Context(b);
+
+			// 4 个线程各提交 25000 个命令，A、B 两种策略交替
+			Thread[] producers = new Thread[4];
+			for (int i = 0; i < producers.length; i++)
+			{
+				producers[i] = new Thread(() -> {
+					try
+					{
+						for (int j = 0; j < 25000; j++)
+						{
+							executor.execute((j & 1) == 0 ? contextA : contextB);
+						}
+					} catch (InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+					}
+				});
+				producers[i].start();
+			}
+			for (Thread t : producers)
+			{
+				t.join();
+			}
+			executor.awaitIdle(10, TimeUnit.SECONDS);
+			System.out.println(a.count.sum() == 50000 && b.count.sum() == 50000); // 返回 true
+			System.out.println(executor.getAverageBatchSize() > 1); // 返回 true，同类型命令成批执行
+
+			// 返回 future 的提交
+			System.out.println(executor.submit(new Context(new StrategyA())).get() == null); // 返回 true
+			try
+			{
+				executor.submit(new Context(new Failing())).join();
+				System.out.println(false);
+			} catch (CompletionException e)
+			{
+				System.out.println(e.getCause() instanceof IllegalStateException); // 返回 true
+			}
+			executor.execute(new Context(new Failing()));
+			executor.awaitIdle(1, TimeUnit.SECONDS);
+			System.out.println(errors.sum() == 1); // 返回 true
+			System.out.println(executor);
+		}
+
+		// 背压：执行线程被阻塞时，名额用完后 tryExecute 返回 false
+		final CountDownLatch release = new CountDownLatch(1);
+		try (CommandExecutor executor = new CommandExecutor(pool, 4, 64, Throwable::printStackTrace))
+		{
+			Context blocked = new Context(() -> {
+				try
+				{
+					release.await();
+				} catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			});
+			int accepted = 0;
+			for (int i = 0; i < 10; i++)
+			{
+				if (executor.tryExecute(blocked))
+				{
+					accepted++;
+				}
+			}
+			System.out.println(accepted == 4 && executor.getRejected() == 6); // 返回 true
+			release.countDown();
+		}
+		pool.shutdown();
+
+		// close() 与 execute() 并发：被拒绝的提交不会占住名额
+		boolean balanced = true;
+		for (int i = 0; i < 200; i++)
+		{
+			final CommandExecutor executor = new CommandExecutor();
+			final Context context = new Context(new CountingA());
+			Thread producer = new Thread(() -> {
+				try
+				{
+					while (true)
+					{
+						executor.execute(context);
+					}
+				} catch (RejectedExecutionException | InterruptedException e)
+				{
+					// 执行器已关闭
+				}
+			});
+			producer.start();
+			Thread.yield();
+			executor.close();
+			producer.join();
+			executor.awaitIdle(1, TimeUnit.SECONDS); // close() 返回前已提交的排空任务仍在执行
+			balanced &= executor.getPending() == 0 && executor.getSubmitted() == executor.getExecuted();
+		}
+		System.out.println(balanced); // 返回 true
+	}
+}
@@ -0,0 +1,224 @@
+package com.cqupt.mauger.behavior;
+
+/**
+ * 双轴快速排序
+ * 	AbstractSort 的实现类，选取两个轴将数组分为三段：小于 p1、介于 p1 与 p2 之间、大于 p2，再分别递归排序。
+ *
+ * 实现：
+ * 	1）从等距的 5 个样本中取第 2、第 4 小的值作为两个轴，已排序、逆序的输入也能均匀划分。
+ * 	2）两个轴相等时中间段全部相等，不再递归；中间段过大时先把等于轴的元素移到两端，对大量重复值的输入同样有效。
+ * 	3）小区间使用插入排序；递归深度超过 2*log2(n) 时改用堆排序，保证最坏情况为 O(n log n)。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public class DualPivotQuickSort extends AbstractSort
+{
+	private static final int INSERTION_SORT_THRESHOLD = 32;
+
+	@Override
+	protected void sort(int[] array)
+	{
+		sortRange(array, 0, array.length - 1);
+	}
+
+	/**
+	 * 对 array[left..right] 排序（包含两端）
+	 * @param array 数组
+	 * @param left 起始下标
+	 * @param right 结束下标
+	 */
+	static void sortRange(int[] array, int left, int right)
+	{
+		if (right > left)
+		{
+			sort(array, left, right, 2 * (32 - Integer.numberOfLeadingZeros(right - left + 1)));
+		}
+	}
+
+	private static void sort(int[] a, int left, int right, int depth)
+	{
+		int length = right - left + 1;
+		if (length < INSERTION_SORT_THRESHOLD)
+		{
+			insertionSort(a, left, right);
+			return;
+		}
+		if (depth == 0)
+		{
+			heapSort(a, left, right);
+			return;
+		}
+
+		// 取 5 个等距样本并排序，e2、e4 作为轴
+		int seventh = (length >> 3) + (length >> 6) + 1;
+		int e3 = (left + right) >>> 1;
+		int e2 = e3 - seventh;
+		int e1 = e2 - seventh;
+		int e4 = e3 + seventh;
+		int e5 = e4 + seventh;
+		sort5(a, e1, e2, e3, e4, e5);
+
+		int pivot1 = a[e2];
+		int pivot2 = a[e4];
+		a[e2] = a[left];
+		a[e4] = a[right];
+
+		int less = left + 1;
+		int great = right - 1;
+		for (int k = less; k <= great; k++)
+		{
+			int ak = a[k];
+			if (ak < pivot1)
+			{
+				a[k] = a[less];
+				a[less++] = ak;
+			}
+			else if (ak > pivot2)
+			{
+				while (k < great && a[great] > pivot2)
+				{
+					great--;
+				}
+				a[k] = a[great];
+				a[great--] = ak;
+				ak = a[k];
+				if (ak < pivot1)
+				{
+					a[k] = a[less];
+					a[less++] = ak;
+				}
+			}
+		}
+
+		// 轴放回最终位置
+		a[left] = a[less - 1];
+		a[less - 1] = pivot1;
+		a[right] = a[great + 1];
+		a[great + 1] = pivot2;
+
+		sort(a, left, less - 2, depth - 1);
+		sort(a, great + 2, right, depth - 1);
+
+		if (pivot1 == pivot2)
+		{
+			return; // 中间段全部等于轴
+		}
+		if (great - less > length - (length >> 3))
+		{
+			// 中间段过大，把等于轴的元素移出
+			for (int k = less; k <= great; k++)
+			{
+				int ak = a[k];
+				if (ak == pivot1)
+				{
+					a[k] = a[less];
+					a[less++] = ak;
+				}
+				else if (ak == pivot2)
+				{
+					a[k] = a[great];
+					a[great--] = ak;
+					ak = a[k];
+					if (ak == pivot1)
+					{
+						a[k] = a[less];
+						a[less++] = ak;
+					}
+				}
+			}
+		}
+		sort(a, less, great, depth - 1);
+	}
+
+	private static void sort5(int[] a, int e1, int e2, int e3, int e4, int e5)
+	{
+		int[] idx = { e1, e2, e3, e4, e5 };
+		for (int i = 1; i < idx.length; i++)
+		{
+			int v = a[idx[i]];
+			int j = i - 1;
+			while (j >= 0 && a[idx[j]] > v)
+			{
+				a[idx[j + 1]] = a[idx[j]];
+				j--;
+			}
+			a[idx[j + 1]] = v;
+		}
+	}
+
+	/**
+	 * 插入排序 array[left..right]
+	 */
+	static void insertionSort(int[] a, int left, int right)
+	{
+		for (int i = left + 1; i <= right; i++)
+		{
+			int v = a[i];
+			int j = i - 1;
+			while (j >= left && a[j] > v)
+			{
+				a[j + 1] = a[j];
+				j--;
+			}
+			a[j + 1] = v;
+		}
+	}
+
+	/**
+	 * 堆排序 array[left..right]
+	 */
+	static void heapSort(int[] a, int left, int right)
+	{
+		int n = right - left + 1;
+		for (int i = (n >>> 1) - 1; i >= 0; i--)
+		{
+			siftDown(a, left, i, n);
+		}
+		for (int end = n - 1; end > 0; end--)
+		{
+			int t = a[left];
+			a[left] = a[left + end];
+			a[left + end] = t;
+			siftDown(a, left, 0, end);
+		}
+	}
+
+	private static void siftDown(int[] a, int base, int i, int n)
+	{
+		int v = a[base + i];
+		int child;
+		while ((child = 2 * i + 1) < n)
+		{
+			if (child + 1 < n && a[base + child + 1] > a[base + child])
+			{
+				child++;
+			}
+			if (a[base + child] <= v)
+			{
+				break;
+			}
+			a[base + i] = a[base + child];
+			i = child;
+		}
+		a[base + i] = v;
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class DualPivotQuickSortTest
+{
+	public static void main(String[] args)
+	{
+		int[] array = { 119, 3, 9, 120, 5, 7, 2, 110, 40000, -40000 };
+		new DualPivotQuickSort().showSortResult(array);
+		System.out.println(SortBenchmark.verify(new DualPivotQuickSort(), 100000)); // 返回 true
+	}
+}
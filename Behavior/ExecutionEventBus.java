@@ -0,0 +1,650 @@
+package com.cqupt.mauger.behavior;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.cqupt.mauger.benchmark.BenchmarkRunner;
+
+/**
+ * 观察者模式 Observer Pattern
+ *
+ * 类型：
+ * 	行为型模式
+ *
+ * 定义：
+ * 	定义对象间一种一对多的依赖关系，当一个对象的状态发生改变时，所有依赖于它的对象都得到通知。
+ * 	这里被观察的是 Context.excute()：每次执行发布一个执行事件，监听者（观察者）在自己的线程上收到通知。
+ *
+ * 实现（环形缓冲区）：
+ * 	1）事件对象在创建时一次性分配好，发布时只填写字段，不为每个事件分配对象。
+ * 	2）发布者通过 CAS 或原子自增领取序号，填写 events[序号 & mask] 后在 available 数组中标记该序号已发布，全程无锁。
+ * 	3）每个监听者一个消费线程和一个消费序号；消费线程一次取出所有连续已发布的事件，批量处理后才更新消费序号。
+ * 	4）缓冲区满（最慢的监听者落后一整圈）时，DROP 丢弃事件并计数，BLOCK 让发布者等待。
+ * 	5）消费线程没有事件时的等待方式：BUSY_SPIN 自旋、YIELDING 让出 CPU、SLEEPING 短暂休眠、BLOCKING 在条件变量上等待。
+ *
+ * 注意事项：
+ * 	监听者只能在回调中读取事件，回调返回后事件会被复用；需要保留时应复制字段。
+ * 	BLOCKING 只在有消费线程正在等待时才由发布者加锁通知，消费线程忙碌时发布路径上没有锁。
+ * 	close() 之后发布的事件直接丢弃；close() 时领取了序号但尚未发布完成的事件也可能被丢弃。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class ExecutionEventBus implements AutoCloseable
+{
+	/**
+	 * 消费线程的等待方式
+	 */
+	enum WaitStrategy
+	{
+		BUSY_SPIN, YIELDING, SLEEPING, BLOCKING
+	}
+
+	/**
+	 * 缓冲区满时的处理方式
+	 */
+	enum FullPolicy
+	{
+		DROP, BLOCK
+	}
+
+	/**
+	 * 执行事件监听者
+	 */
+	interface ExecutionListener
+	{
+		/**
+		 * @param event 事件，回调返回后会被复用
+		 * @param sequence 事件序号
+		 * @param endOfBatch 是否为本批最后一个事件，可以在此时刷新批量写出的数据
+		 */
+		void onEvent(ExecutionEvent event, long sequence, boolean endOfBatch);
+	}
+
+	private final ExecutionEvent[] events;
+	private final int mask;
+	private final AtomicLongArray available;
+	private final AtomicLong cursor = new AtomicLong(-1);
+	private volatile long gatingCache = -1;
+	private final WaitStrategy waitStrategy;
+	private final FullPolicy fullPolicy;
+	private final List<Consumer> consumers = new ArrayList<Consumer>();
+	private volatile boolean running;
+	private volatile boolean closed;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition published = lock.newCondition();
+	private final AtomicInteger waiters = new AtomicInteger(); // 正在条件变量上等待的消费线程数
+
+	private final LongAdder dropped = new LongAdder();
+
+	/**
+	 * @param bufferSize 缓冲区大小，向上取整为 2 的幂
+	 * @param waitStrategy 消费线程的等待方式
+	 * @param fullPolicy 缓冲区满时的处理方式
+	 */
+	public ExecutionEventBus(int bufferSize, WaitStrategy waitStrategy, FullPolicy fullPolicy)
+	{
+		if (bufferSize <= 0 || bufferSize > 1 << 30)
+		{
+			throw new IllegalArgumentException("缓冲区大小错误：" + bufferSize);
+		}
+		int size = bufferSize == 1 ? 1 : Integer.highestOneBit(bufferSize - 1) << 1;
+		this.events = new ExecutionEvent[size];
+		for (int i = 0; i < size; i++)
+		{
+			events[i] = new ExecutionEvent();
+		}
+		this.mask = size - 1;
+		this.available = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+		{
+			available.set(i, -1);
+		}
+		this.waitStrategy = waitStrategy;
+		this.fullPolicy = fullPolicy;
+	}
+
+	/**
+	 * 添加监听者，必须在 start() 之前调用
+	 */
+	public synchronized void addListener(ExecutionListener listener)
+	{
+		if (running)
+		{
+			throw new IllegalStateException("事件总线已启动");
+		}
+		consumers.add(new Consumer(listener, consumers.size()));
+	}
+
+	/**
+	 * 启动所有消费线程
+	 */
+	public synchronized void start()
+	{
+		if (running)
+		{
+			throw new IllegalStateException("事件总线已启动");
+		}
+		running = true;
+		for (Consumer consumer : consumers)
+		{
+			consumer.thread.start();
+		}
+	}
+
+	public int getBufferSize()
+	{
+		return events.length;
+	}
+
+	/**
+	 * 发布一个执行事件
+	 * @return 缓冲区满且策略为 DROP 时，或事件总线已关闭时返回 false
+	 */
+	public boolean publish(Strategy strategy, long startNanos, long elapsedNanos, Throwable failure)
+	{
+		if (closed)
+		{
+			dropped.increment();
+			return false;
+		}
+		int size = events.length;
+		long seq;
+		if (fullPolicy == FullPolicy.DROP)
+		{
+			while (true)
+			{
+				long current = cursor.get();
+				seq = current + 1;
+				if (seq - size > gatingSequence(seq - size))
+				{
+					dropped.increment();
+					return false;
+				}
+				if (cursor.compareAndSet(current, seq))
+				{
+					break;
+				}
+			}
+		}
+		else
+		{
+			seq = cursor.incrementAndGet();
+			int spins = 0;
+			while (seq - size > gatingSequence(seq - size)) // 等待最慢的监听者
+			{
+				if (closed)
+				{
+					dropped.increment(); // 消费线程已退出，不会再有空位
+					return false;
+				}
+				if (++spins < 100)
+				{
+					Thread.yield();
+				}
+				else
+				{
+					LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+				}
+			}
+		}
+		ExecutionEvent event = events[(int) seq & mask];
+		event.strategy = strategy;
+		event.startNanos = startNanos;
+		event.elapsedNanos = elapsedNanos;
+		event.threadId = Thread.currentThread().getId();
+		event.failure = failure;
+		if (waitStrategy != WaitStrategy.BLOCKING)
+		{
+			available.lazySet((int) seq & mask, seq);
+			return true;
+		}
+		// 先发布再读取 waiters，与消费线程先增加 waiters 再检查是否已发布配对，两边都是 volatile 访问，不会错过通知
+		available.set((int) seq & mask, seq);
+		if (waiters.get() > 0)
+		{
+			lock.lock();
+			try
+			{
+				published.signalAll();
+			} finally
+			{
+				lock.unlock();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 所有监听者都已处理到的序号；缓存的值足够时不遍历监听者
+	 */
+	private long gatingSequence(long required)
+	{
+		long cached = gatingCache;
+		if (required <= cached)
+		{
+			return cached;
+		}
+		long min = Long.MAX_VALUE;
+		for (Consumer consumer : consumers)
+		{
+			min = Math.min(min, consumer.sequence.get());
+		}
+		if (min == Long.MAX_VALUE)
+		{
+			min = cursor.get(); // 没有监听者，事件不需要保留
+		}
+		gatingCache = min;
+		return min;
+	}
+
+	/** 因缓冲区满而丢弃的事件数 */
+	public long getDropped()
+	{
+		return dropped.sum();
+	}
+
+	/** 已发布的事件数 */
+	public long getPublished()
+	{
+		return cursor.get() + 1;
+	}
+
+	/**
+	 * 停止事件总线，消费线程处理完已发布的事件后退出；之后的 publish 返回 false
+	 */
+	@Override
+	public void close()
+	{
+		closed = true;
+		running = false;
+		lock.lock();
+		try
+		{
+			published.signalAll();
+		} finally
+		{
+			lock.unlock();
+		}
+		try
+		{
+			for (Consumer consumer : consumers)
+			{
+				consumer.thread.join();
+			}
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ExecutionEventBus[bufferSize=" + events.length + ", " + waitStrategy + ", " + fullPolicy + ", published="
+				+ getPublished() + ", dropped=" + getDropped() + "]";
+	}
+
+	/**
+	 * 消费者：一个监听者、一个消费线程、一个消费序号
+	 */
+	private final class Consumer implements Runnable
+	{
+		final ExecutionListener listener;
+		final AtomicLong sequence = new AtomicLong(-1);
+		final Thread thread;
+
+		Consumer(ExecutionListener listener, int index)
+		{
+			this.listener = listener;
+			this.thread = new Thread(this, "execution-event-consumer-" + index);
+			this.thread.setDaemon(true);
+		}
+
+		public void run()
+		{
+			long next = sequence.get() + 1;
+			while (true)
+			{
+				long last = waitFor(next);
+				if (last < next)
+				{
+					return; // 已停止且没有剩余事件
+				}
+				for (long s = next; s <= last; s++)
+				{
+					try
+					{
+						listener.onEvent(events[(int) s & mask], s, s == last);
+					} catch (Throwable e)
+					{
+						e.printStackTrace(); // 一个事件处理失败不影响后续事件，消费线程也不会因此退出
+					}
+				}
+				sequence.lazySet(last);
+				next = last + 1;
+			}
+		}
+
+		/**
+		 * 等待序号 next 发布
+		 * @return 从 next 开始连续已发布的最大序号；已停止且 next 尚未发布时返回 next - 1
+		 */
+		private long waitFor(long next)
+		{
+			int spins = 0;
+			while (available.get((int) next & mask) != next)
+			{
+				if (!running)
+				{
+					return next - 1;
+				}
+				switch (waitStrategy)
+				{
+				case BUSY_SPIN:
+					Thread.onSpinWait();
+					break;
+				case YIELDING:
+					Thread.yield();
+					break;
+				case SLEEPING:
+					if (++spins < 100)
+					{
+						Thread.yield();
+					}
+					else
+					{
+						LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+					}
+					break;
+				default:
+					awaitPublished(next);
+				}
+			}
+			long last = next;
+			long max = cursor.get();
+			while (last < max && available.get((int) (last + 1) & mask) == last + 1)
+			{
+				last++;
+			}
+			return last;
+		}
+
+		private void awaitPublished(long next)
+		{
+			lock.lock();
+			waiters.incrementAndGet();
+			try
+			{
+				if (available.get((int) next & mask) != next && running)
+				{
+					published.await(1, TimeUnit.MILLISECONDS); // 超时兜底
+				}
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			} finally
+			{
+				waiters.decrementAndGet();
+				lock.unlock();
+			}
+		}
+	}
+}
+
+
+/**
+ * 执行事件
+ * 	由环形缓冲区预先分配并反复使用。
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class ExecutionEvent
+{
+	Strategy strategy;
+	long startNanos;
+	long elapsedNanos;
+	long threadId;
+	Throwable failure;
+
+	public Strategy getStrategy()
+	{
+		return strategy;
+	}
+
+	public long getStartNanos()
+	{
+		return startNanos;
+	}
+
+	public long getElapsedNanos()
+	{
+		return elapsedNanos;
+	}
+
+	public long getThreadId()
+	{
+		return threadId;
+	}
+
+	/** 执行抛出的异常，成功时为 null */
+	public Throwable getFailure()
+	{
+		return failure;
+	}
+}
+
+
+/**
+ * 被观察的封装类
+ * 	每次 excute() 结束后把执行事件发布到事件总线，发布不分配对象，缓冲区满时按事件总线的策略处理。
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class ObservedContext extends Context
+{
+	private final Strategy strategy;
+	private final ExecutionEventBus bus;
+
+	public ObservedContext(Strategy strategy, ExecutionEventBus bus)
+	{
+		super(strategy);
+		this.strategy = strategy;
+		this.bus = bus;
+	}
+
+	@Override
+	public void excute()
+	{
+		long start = System.nanoTime();
+		Throwable failure = null;
+		try
+		{
+			super.excute();
+		} catch (RuntimeException | Error e)
+		{
+			failure = e;
+			throw e;
+		} finally
+		{
+			bus.publish(strategy, start, System.nanoTime() - start, failure);
+		}
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class ExecutionEventBusTest
+{
+	/**
+	 * 不输出的策略
+	 */
+	static class QuietStrategy implements Strategy
+	{
+		int count;
+
+		public void doSomething()
+		{
+			count++;
+		}
+	}
+
+	/**
+	 * 统计事件数与最大批大小的监听者
+	 */
+	static class CountingListener implements ExecutionEventBus.ExecutionListener
+	{
+		long events;
+		long batches;
+		long elapsedNanos;
+
+		public void onEvent(ExecutionEvent event, long sequence, boolean endOfBatch)
+		{
+			events++;
+			elapsedNanos += event.getElapsedNanos();
+			if (endOfBatch)
+			{
+				batches++;
+			}
+		}
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		// 单个事件
+		ExecutionEventBus bus = new ExecutionEventBus(8, ExecutionEventBus.WaitStrategy.BLOCKING,
+				ExecutionEventBus.FullPolicy.BLOCK);
+		final StringBuilder seen = new StringBuilder();
+		bus.addListener((event, sequence, endOfBatch) -> seen.append(event.getStrategy().getClass().getSimpleName()));
+		bus.start();
+		new ObservedContext(new StrategyA(), bus).excute();
+		bus.close();
+		System.out.println("StrategyA".equals(seen.toString())); // 返回 true
+
+		// BLOCK：4 个线程各执行 100000 次，两个监听者都收到全部事件
+		for (ExecutionEventBus.WaitStrategy wait : ExecutionEventBus.WaitStrategy.values())
+		{
+			bus = new ExecutionEventBus(1024, wait, ExecutionEventBus.FullPolicy.BLOCK);
+			CountingListener audit = new CountingListener();
+			CountingListener stats = new CountingListener();
+			bus.addListener(audit);
+			bus.addListener(stats);
+			bus.start();
+			runProducers(bus, 4, 100000);
+			bus.close();
+			System.out.println(audit.events == 400000 && stats.events == 400000 && bus.getDropped() == 0); // 返回 true
+			System.out.println(wait + "：平均批大小 " + audit.events / Math.max(1, audit.batches));
+		}
+
+		// DROP：监听者很慢时丢弃事件，发布者不等待
+		bus = new ExecutionEventBus(64, ExecutionEventBus.WaitStrategy.SLEEPING, ExecutionEventBus.FullPolicy.DROP);
+		CountingListener slow = new CountingListener()
+		{
+			@Override
+			public void onEvent(ExecutionEvent event, long sequence, boolean endOfBatch)
+			{
+				super.onEvent(event, sequence, endOfBatch);
+				LockSupport.parkNanos(10000);
+			}
+		};
+		bus.addListener(slow);
+		bus.start();
+		runProducers(bus, 2, 50000);
+		bus.close();
+		System.out.println(bus.getDropped() > 0 && slow.events + bus.getDropped() == 100000); // 返回 true
+		System.out.println(bus);
+
+		// 关闭后发布直接返回 false，BLOCK 的发布者不会一直等待；监听者抛出 Error 不会终止消费线程
+		bus = new ExecutionEventBus(4, ExecutionEventBus.WaitStrategy.BLOCKING, ExecutionEventBus.FullPolicy.BLOCK);
+		final CountingListener survivor = new CountingListener();
+		bus.addListener((event, sequence, endOfBatch) -> {
+			survivor.onEvent(event, sequence, endOfBatch);
+			if (sequence == 0)
+			{
+				throw new AssertionError("监听者失败");
+			}
+		});
+		bus.start();
+		Context context = new ObservedContext(new QuietStrategy(), bus);
+		for (int i = 0; i < 100; i++)
+		{
+			context.excute();
+		}
+		bus.close();
+		System.out.println(survivor.events == 100); // 返回 true
+		boolean accepted = false;
+		for (int i = 0; i < 100; i++)
+		{
+			accepted |= bus.publish(context.getStrategy(), 0, 0, null);
+		}
+		System.out.println(!accepted && bus.getDropped() == 100); // 返回 true
+
+		// 发布开销
+		bus = new ExecutionEventBus(1 << 16, ExecutionEventBus.WaitStrategy.YIELDING, ExecutionEventBus.FullPolicy.DROP);
+		bus.addListener(new CountingListener());
+		bus.start();
+		final Context plain = new Context(new QuietStrategy());
+		final Context observed = new ObservedContext(new QuietStrategy(), bus);
+		BenchmarkRunner runner = new BenchmarkRunner(300, 700, 1024);
+		BenchmarkRunner.printHeader();
+		System.out.println(runner.run("Context", 1, () -> {
+			plain.excute();
+			return plain;
+		}));
+		System.out.println(runner.run("ObservedContext", 1, () -> {
+			observed.excute();
+			return observed;
+		}));
+		bus.close();
+		System.out.println(bus);
+
+		// BLOCKING：消费线程跟得上时发布路径上没有锁
+		bus = new ExecutionEventBus(1 << 16, ExecutionEventBus.WaitStrategy.BLOCKING, ExecutionEventBus.FullPolicy.DROP);
+		bus.addListener(new CountingListener());
+		bus.start();
+		final Context blocking = new ObservedContext(new QuietStrategy(), bus);
+		System.out.println(runner.run("ObservedContext(BLOCKING)", 1, () -> {
+			blocking.excute();
+			return blocking;
+		}));
+		bus.close();
+	}
+
+	private static void runProducers(final ExecutionEventBus bus, int threads, final int perThread)
+			throws InterruptedException
+	{
+		Thread[] producers = new Thread[threads];
+		for (int i = 0; i < threads; i++)
+		{
+			producers[i] = new Thread(() -> {
+				Context context = new ObservedContext(new QuietStrategy(), bus);
+				for (int j = 0; j < perThread; j++)
+				{
+					context.excute();
+				}
+			});
+			producers[i].start();
+		}
+		for (Thread t : producers)
+		{
+			t.join();
+		}
+	}
+}
@@ -0,0 +1,377 @@
+package com.cqupt.mauger.behavior;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 外部排序
+ * 	AbstractSort 的实现类，用于排序比堆内存还大的 int 文件。sort(int[]) 直接交给内存排序实现，sortFile 对文件排序。
+ *
+ * 文件格式：
+ * 	连续存放的 int，默认大端字节序（与 DataOutputStream 一致），文件长度必须是 4 的整数倍。
+ *
+ * 实现：
+ * 	1）生成顺串：按 runInts 个 int 切分输入文件，通过 FileChannel 内存映射读取每一段，多个线程并行排序，
+ * 	       排好的顺串按原位置写入同样大小的临时文件。同时最多有 parallelism 个顺串在堆中，堆内存占用为 parallelism * runInts * 4 字节。
+ * 	2）多路归并：每个顺串只映射一个 windowInts 大小的窗口，用小顶堆选出最小值，经直接缓冲区批量写入输出文件，
+ * 	       归并阶段的堆内存只有 O(顺串数)。
+ * 	3）每个阶段通过 ProgressListener 报告进度与吞吐量。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public class ExternalSort extends AbstractSort
+{
+	private final AbstractSort runSort;
+	private final int runInts;
+	private final int parallelism;
+	private final int windowInts;
+	private ByteOrder order = ByteOrder.BIG_ENDIAN;
+	private ProgressListener listener = new ConsoleProgressListener();
+
+	/**
+	 * 默认每个顺串 8M 个 int（32MB），并行度为 CPU 核数，归并窗口 256K 个 int（1MB）
+	 */
+	public ExternalSort()
+	{
+		this(new DualPivotQuickSort(), 1 << 23, Runtime.getRuntime().availableProcessors(), 1 << 18);
+	}
+
+	/**
+	 * @param runSort 排序顺串使用的内存排序实现
+	 * @param runInts 每个顺串的 int 个数
+	 * @param parallelism 并行排序顺串的线程数
+	 * @param windowInts 归并时每个顺串映射窗口以及输出缓冲区的 int 个数
+	 */
+	public ExternalSort(AbstractSort runSort, int runInts, int parallelism, int windowInts)
+	{
+		if (runInts <= 0 || parallelism <= 0 || windowInts <= 0)
+		{
+			throw new IllegalArgumentException("参数必须大于 0");
+		}
+		this.runSort = runSort;
+		this.runInts = runInts;
+		this.parallelism = parallelism;
+		this.windowInts = windowInts;
+	}
+
+	public ExternalSort setByteOrder(ByteOrder order)
+	{
+		this.order = order;
+		return this;
+	}
+
+	public ExternalSort setProgressListener(ProgressListener listener)
+	{
+		this.listener = listener;
+		return this;
+	}
+
+	@Override
+	protected void sort(int[] array)
+	{
+		runSort.sort(array);
+	}
+
+	/**
+	 * 对 input 中的 int 排序，结果写入 output
+	 * @param input 输入文件
+	 * @param output 输出文件，已存在时覆盖
+	 * @throws IOException 读写文件失败或文件长度不是 4 的整数倍
+	 */
+	public void sortFile(Path input, Path output) throws IOException
+	{
+		long bytes = Files.size(input);
+		if (bytes % 4 != 0)
+		{
+			throw new IOException("文件长度不是 4 的整数倍：" + input);
+		}
+		long n = bytes / 4;
+		Path dir = output.toAbsolutePath().getParent();
+		Path runFile = Files.createTempFile(dir, "external-sort", ".run");
+		try
+		{
+			long begin = System.nanoTime();
+			int runs = createRuns(input, runFile, n);
+			listener.onPhaseDone("runs", n, System.nanoTime() - begin);
+			begin = System.nanoTime();
+			merge(runFile, output, n, runs);
+			listener.onPhaseDone("merge", n, System.nanoTime() - begin);
+		} finally
+		{
+			Files.deleteIfExists(runFile);
+		}
+	}
+
+	/**
+	 * 生成顺串
+	 * @return 顺串个数
+	 */
+	private int createRuns(Path input, Path runFile, final long n) throws IOException
+	{
+		final int runs = (int) ((n + runInts - 1) / runInts);
+		final AtomicLong done = new AtomicLong();
+		final long begin = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		try (final FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+				final FileChannel out = FileChannel.open(runFile, StandardOpenOption.READ, StandardOpenOption.WRITE))
+		{
+			List<Future<?>> futures = new ArrayList<Future<?>>(runs);
+			for (int r = 0; r < runs; r++)
+			{
+				final long from = (long) r * runInts;
+				final int length = (int) Math.min(runInts, n - from);
+				futures.add(executor.submit(() -> {
+					int[] run = new int[length];
+					MappedByteBuffer src = in.map(FileChannel.MapMode.READ_ONLY, from * 4, length * 4L);
+					src.order(order).asIntBuffer().get(run);
+					runSort.sort(run);
+					MappedByteBuffer dst = out.map(FileChannel.MapMode.READ_WRITE, from * 4, length * 4L);
+					dst.order(order).asIntBuffer().put(run);
+					listener.onProgress("runs", done.addAndGet(length), n, System.nanoTime() - begin);
+					return null;
+				}));
+			}
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+		} catch (ExecutionException e)
+		{
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("排序被中断", e);
+		} finally
+		{
+			executor.shutdownNow();
+		}
+		return runs;
+	}
+
+	/**
+	 * 多路归并
+	 */
+	private void merge(Path runFile, Path output, long n, int runs) throws IOException
+	{
+		long begin = System.nanoTime();
+		try (FileChannel in = FileChannel.open(runFile, StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			RunReader[] readers = new RunReader[runs];
+			int[] heap = new int[runs]; // 顺串下标组成的小顶堆，以各顺串当前值排序
+			int size = 0;
+			for (int r = 0; r < runs; r++)
+			{
+				long from = (long) r * runInts;
+				readers[r] = new RunReader(in, from, Math.min(from + runInts, n));
+				if (readers[r].advance())
+				{
+					heap[size++] = r;
+				}
+			}
+			for (int i = (size >>> 1) - 1; i >= 0; i--)
+			{
+				siftDown(heap, size, i, readers);
+			}
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect(windowInts * 4).order(order);
+			long written = 0;
+			long reportEvery = Math.max(n / 100, windowInts);
+			long nextReport = reportEvery;
+			while (size > 0)
+			{
+				RunReader top = readers[heap[0]];
+				buffer.putInt(top.current);
+				if (!buffer.hasRemaining())
+				{
+					written += flush(out, buffer);
+					if (written >= nextReport)
+					{
+						listener.onProgress("merge", written, n, System.nanoTime() - begin);
+						nextReport += reportEvery;
+					}
+				}
+				if (!top.advance())
+				{
+					heap[0] = heap[--size];
+				}
+				siftDown(heap, size, 0, readers);
+			}
+			written += flush(out, buffer);
+			listener.onProgress("merge", written, n, System.nanoTime() - begin);
+		}
+	}
+
+	private static long flush(FileChannel out, ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+		long ints = buffer.remaining() / 4;
+		while (buffer.hasRemaining())
+		{
+			out.write(buffer);
+		}
+		buffer.clear();
+		return ints;
+	}
+
+	private static void siftDown(int[] heap, int size, int i, RunReader[] readers)
+	{
+		int r = heap[i];
+		int v = readers[r].current;
+		int child;
+		while ((child = 2 * i + 1) < size)
+		{
+			if (child + 1 < size && readers[heap[child + 1]].current < readers[heap[child]].current)
+			{
+				child++;
+			}
+			if (readers[heap[child]].current >= v)
+			{
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = r;
+	}
+
+	/**
+	 * 顺串读取器，每次只映射一个窗口
+	 */
+	private final class RunReader
+	{
+		private final FileChannel channel;
+		private long next; // 下一个待映射的 int 下标
+		private final long end;
+		private IntBuffer window;
+		int current;
+
+		RunReader(FileChannel channel, long from, long end)
+		{
+			this.channel = channel;
+			this.next = from;
+			this.end = end;
+		}
+
+		/**
+		 * 读取下一个值到 current
+		 * @return 顺串已读完时返回 false
+		 */
+		boolean advance() throws IOException
+		{
+			if (window == null || !window.hasRemaining())
+			{
+				if (next >= end)
+				{
+					return false;
+				}
+				int length = (int) Math.min(windowInts, end - next);
+				window = channel.map(FileChannel.MapMode.READ_ONLY, next * 4, length * 4L).order(order).asIntBuffer();
+				next += length;
+			}
+			current = window.get();
+			return true;
+		}
+	}
+
+	/**
+	 * 进度监听器
+	 */
+	public interface ProgressListener
+	{
+		/**
+		 * 阶段进度
+		 * @param phase 阶段，runs 或 merge
+		 * @param done 已处理的 int 个数
+		 * @param total int 总数
+		 * @param elapsedNanos 本阶段已用时间
+		 */
+		void onProgress(String phase, long done, long total, long elapsedNanos);
+
+		/**
+		 * 阶段完成
+		 */
+		void onPhaseDone(String phase, long total, long elapsedNanos);
+	}
+
+	/**
+	 * 输出到控制台的进度监听器，吞吐量单位为 MB/s
+	 */
+	public static class ConsoleProgressListener implements ProgressListener
+	{
+		@Override
+		public void onProgress(String phase, long done, long total, long elapsedNanos)
+		{
+			System.out.println(String.format("[%s] %5.1f%%  %8.1f MB/s", phase,
+					total == 0 ? 100.0 : done * 100.0 / total, throughput(done, elapsedNanos)));
+		}
+
+		@Override
+		public void onPhaseDone(String phase, long total, long elapsedNanos)
+		{
+			System.out.println(String.format("[%s] 完成，%d 个 int，耗时 %.1f ms，%.1f MB/s", phase, total,
+					elapsedNanos / 1e6, throughput(total, elapsedNanos)));
+		}
+
+		static double throughput(long ints, long elapsedNanos)
+		{
+			return elapsedNanos == 0 ? 0 : ints * 4 / 1048576.0 / (elapsedNanos / 1e9);
+		}
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class ExternalSortTest
+{
+	public static void main(String[] args) throws IOException
+	{
+		int n = 1000003;
+		int[] data = SortBenchmark.generate("random", n, new Random(7));
+		Path input = Files.createTempFile("external-sort", ".in");
+		Path output = Files.createTempFile("external-sort", ".out");
+		try
+		{
+			ByteBuffer bytes = ByteBuffer.allocate(n * 4);
+			bytes.asIntBuffer().put(data);
+			Files.write(input, bytes.array());
+
+			// 顺串和窗口都取得很小，以覆盖多顺串与窗口切换
+			new ExternalSort(new DualPivotQuickSort(), 100000, 4, 4096).sortFile(input, output);
+
+			int[] sorted = new int[n];
+			ByteBuffer.wrap(Files.readAllBytes(output)).asIntBuffer().get(sorted);
+			Arrays.sort(data);
+			System.out.println(Arrays.equals(data, sorted)); // 返回 true
+		} finally
+		{
+			Files.deleteIfExists(input);
+			Files.deleteIfExists(output);
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package com.cqupt.mauger.behavior;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 并行归并排序
+ * 	AbstractSort 的实现类，基于 Fork/Join 框架，能随 CPU 核数扩展。
+ *
+ * 实现：
+ * 	1）递归二分，区间小于阈值时用双轴快速排序在本线程内排序。
+ * 	2）原数组与辅助数组交替作为源和目标，每一层归并只写一次，不需要拷回。
+ * 	3）归并本身也是并行的：取较长一段的中点，在另一段中二分查找其位置，两侧分别并行归并，
+ * 	       避免最顶层的 O(n) 归并成为串行瓶颈。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public class ParallelMergeSort extends AbstractSort
+{
+	private static final int SORT_THRESHOLD = 1 << 13;
+	private static final int MERGE_THRESHOLD = 1 << 13;
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * 使用公共 ForkJoinPool
+	 */
+	public ParallelMergeSort()
+	{
+		this(ForkJoinPool.commonPool());
+	}
+
+	public ParallelMergeSort(ForkJoinPool pool)
+	{
+		this.pool = pool;
+	}
+
+	@Override
+	protected void sort(int[] array)
+	{
+		if (array.length <= SORT_THRESHOLD)
+		{
+			DualPivotQuickSort.sortRange(array, 0, array.length - 1);
+			return;
+		}
+		pool.invoke(new SortTask(array, new int[array.length], 0, array.length, false));
+	}
+
+	/**
+	 * 排序 a[lo, hi)，toBuffer 为 true 时结果写入 b，否则写回 a
+	 */
+	private static final class SortTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int[] a;
+		private final int[] b;
+		private final int lo;
+		private final int hi;
+		private final boolean toBuffer;
+
+		SortTask(int[] a, int[] b, int lo, int hi, boolean toBuffer)
+		{
+			this.a = a;
+			this.b = b;
+			this.lo = lo;
+			this.hi = hi;
+			this.toBuffer = toBuffer;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (hi - lo <= SORT_THRESHOLD)
+			{
+				DualPivotQuickSort.sortRange(a, lo, hi - 1);
+				if (toBuffer)
+				{
+					System.arraycopy(a, lo, b, lo, hi - lo);
+				}
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new SortTask(a, b, lo, mid, !toBuffer), new SortTask(a, b, mid, hi, !toBuffer));
+			int[] src = toBuffer ? a : b;
+			int[] dst = toBuffer ? b : a;
+			new MergeTask(src, lo, mid, mid, hi, dst, lo).compute();
+		}
+	}
+
+	/**
+	 * 将 src[lo1, hi1) 与 src[lo2, hi2) 归并到 dst[to...]
+	 */
+	private static final class MergeTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int[] src;
+		private final int lo1;
+		private final int hi1;
+		private final int lo2;
+		private final int hi2;
+		private final int[] dst;
+		private final int to;
+
+		MergeTask(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int to)
+		{
+			this.src = src;
+			this.lo1 = lo1;
+			this.hi1 = hi1;
+			this.lo2 = lo2;
+			this.hi2 = hi2;
+			this.dst = dst;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			int n1 = hi1 - lo1;
+			int n2 = hi2 - lo2;
+			if (n1 + n2 <= MERGE_THRESHOLD)
+			{
+				merge(src, lo1, hi1, lo2, hi2, dst, to);
+				return;
+			}
+			if (n1 < n2)
+			{
+				new MergeTask(src, lo2, hi2, lo1, hi1, dst, to).compute();
+				return;
+			}
+			int m1 = (lo1 + hi1) >>> 1;
+			int m2 = lowerBound(src, lo2, hi2, src[m1]);
+			int pos = to + (m1 - lo1) + (m2 - lo2);
+			dst[pos] = src[m1];
+			invokeAll(new MergeTask(src, lo1, m1, lo2, m2, dst, to),
+					new MergeTask(src, m1 + 1, hi1, m2, hi2, dst, pos + 1));
+		}
+	}
+
+	static void merge(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int to)
+	{
+		int i = lo1;
+		int j = lo2;
+		int k = to;
+		while (i < hi1 && j < hi2)
+		{
+			dst[k++] = src[i] <= src[j] ? src[i++] : src[j++];
+		}
+		if (i < hi1)
+		{
+			System.arraycopy(src, i, dst, k, hi1 - i);
+		}
+		else if (j < hi2)
+		{
+			System.arraycopy(src, j, dst, k, hi2 - j);
+		}
+	}
+
+	/**
+	 * a[lo, hi) 中第一个不小于 key 的下标
+	 */
+	static int lowerBound(int[] a, int lo, int hi, int key)
+	{
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (a[mid] < key)
+			{
+				lo = mid + 1;
+			}
+			else
+			{
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class ParallelMergeSortTest
+{
+	public static void main(String[] args)
+	{
+		int[] array = { 119, 3, 9, 120, 5, 7, 2, 110, 40000, -40000 };
+		new ParallelMergeSort().showSortResult(array);
+		System.out.println(SortBenchmark.verify(new ParallelMergeSort(), 1000000)); // 返回 true
+	}
+}
@@ -0,0 +1,451 @@
+package com.cqupt.mauger.behavior;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * 按输入选择算法的排序
+ * 	AbstractSort 的实现类，每次排序前先观察输入，再从几种算法中选出最适合的一种（Plan）：
+ * 	模板方法固定了排序的步骤，这里把“用哪种算法”也推迟到每次调用时决定。
+ *
+ * 实现：
+ * 	1）INSERTION：少于 INSERTION_THRESHOLD 个元素时直接插入排序。
+ * 	2）RUN_MERGE：从头扫描升序段与严格降序段（降序段原地反转），段数不超过 min(MAX_RUNS, n/32) 时逐层两两归并；
+ * 	       段数超过上限时立即停止扫描，随机输入只需扫描很少的元素。已排序、逆序以及由少数有序段拼接而成的输入为 O(n)~O(n log r)。
+ * 	3）取 min(SAMPLE_SIZE, n/8) 个等距样本排序，得到样本的值域与不同值的个数：
+ * 	       COUNTING：样本值域较窄时再遍历一次求出准确的最小、最大值，值域不超过 n/2 + 256 时计数排序，O(n + 值域)。
+ * 	       THREE_WAY：样本中不同值不超过一半（平均每个值至少出现两次）时三路划分快速排序，等于轴的元素一次划分后不再参与递归。
+ * 	4）GENERAL：以上都不满足时交给 general（默认为 DualPivotQuickSort）。
+ *
+ * 说明：
+ * 	每次的决定记录为 Decision，可通过 getLastDecision()、getPlanCounts() 查看，也可以传入 listener 逐次记录。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public class PlannedSort extends AbstractSort
+{
+	static final int INSERTION_THRESHOLD = 32;
+	static final int MAX_RUNS = 64;
+	static final int SAMPLE_SIZE = 256;
+
+	/**
+	 * 排序算法
+	 */
+	public enum Plan
+	{
+		INSERTION, RUN_MERGE, COUNTING, THREE_WAY, GENERAL
+	}
+
+	/**
+	 * 一次排序的决定以及做出决定的依据
+	 */
+	public static final class Decision
+	{
+		private final Plan plan;
+		private final int length;
+		private final int runs;
+		private final int sampleDistinct;
+		private final long range;
+
+		Decision(Plan plan, int length, int runs, int sampleDistinct, long range)
+		{
+			this.plan = plan;
+			this.length = length;
+			this.runs = runs;
+			this.sampleDistinct = sampleDistinct;
+			this.range = range;
+		}
+
+		public Plan getPlan()
+		{
+			return plan;
+		}
+
+		public int getLength()
+		{
+			return length;
+		}
+
+		/** 有序段的个数，-1 表示超过上限后停止了扫描 */
+		public int getRuns()
+		{
+			return runs;
+		}
+
+		/** 样本中不同值的个数，-1 表示没有采样 */
+		public int getSampleDistinct()
+		{
+			return sampleDistinct;
+		}
+
+		/** 准确的值域 max - min，-1 表示没有计算 */
+		public long getRange()
+		{
+			return range;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("Decision[%s, n=%d, runs=%d, sampleDistinct=%d, range=%d]",
+					plan, length, runs, sampleDistinct, range);
+		}
+	}
+
+	private final AbstractSort general;
+	private final Consumer<Decision> listener;
+	private final AtomicLongArray planCounts = new AtomicLongArray(Plan.values().length);
+	private volatile Decision lastDecision;
+
+	/**
+	 * 通用情况使用 DualPivotQuickSort，不记录每次的决定
+	 */
+	public PlannedSort()
+	{
+		this(new DualPivotQuickSort(), null);
+	}
+
+	/**
+	 * @param general 通用情况使用的排序
+	 * @param listener 每次做出决定后调用，可以为 null
+	 */
+	public PlannedSort(AbstractSort general, Consumer<Decision> listener)
+	{
+		this.general = general;
+		this.listener = listener;
+	}
+
+	/** 最近一次排序的决定 */
+	public Decision getLastDecision()
+	{
+		return lastDecision;
+	}
+
+	/** 每种算法被选中的次数 */
+	public Map<Plan, Long> getPlanCounts()
+	{
+		Map<Plan, Long> counts = new EnumMap<Plan, Long>(Plan.class);
+		for (Plan plan : Plan.values())
+		{
+			counts.put(plan, planCounts.get(plan.ordinal()));
+		}
+		return counts;
+	}
+
+	@Override
+	protected void sort(int[] array)
+	{
+		Decision decision = plan(array);
+		switch (decision.plan)
+		{
+			case INSERTION:
+				DualPivotQuickSort.insertionSort(array, 0, array.length - 1);
+				break;
+			case RUN_MERGE:
+				break; // plan 中已经完成
+			case COUNTING:
+				countingSort(array, decision.range);
+				break;
+			case THREE_WAY:
+				threeWaySort(array, 0, array.length - 1, 2 * (32 - Integer.numberOfLeadingZeros(array.length)));
+				break;
+			default:
+				general.sort(array);
+				break;
+		}
+		planCounts.incrementAndGet(decision.plan.ordinal());
+		lastDecision = decision;
+		if (listener != null)
+		{
+			listener.accept(decision);
+		}
+	}
+
+	/**
+	 * 观察输入并做出决定；选中 RUN_MERGE 时同时完成归并
+	 */
+	Decision plan(int[] a)
+	{
+		int n = a.length;
+		if (n < INSERTION_THRESHOLD)
+		{
+			return new Decision(Plan.INSERTION, n, -1, -1, -1);
+		}
+
+		int runs = mergeRuns(a, Math.min(MAX_RUNS, n >>> 5));
+		if (runs > 0)
+		{
+			return new Decision(Plan.RUN_MERGE, n, runs, -1, -1);
+		}
+
+		int[] sample = new int[Math.min(SAMPLE_SIZE, n >>> 3)]; // 较小的输入按比例少取样本
+		int step = n / sample.length;
+		for (int i = 0; i < sample.length; i++)
+		{
+			sample[i] = a[i * step + (step >>> 1)];
+		}
+		Arrays.sort(sample);
+		int distinct = 1;
+		for (int i = 1; i < sample.length; i++)
+		{
+			if (sample[i] != sample[i - 1])
+			{
+				distinct++;
+			}
+		}
+
+		long limit = n / 2 + 256;
+		if ((long) sample[sample.length - 1] - sample[0] <= limit)
+		{
+			int min = a[0];
+			int max = a[0];
+			for (int v : a)
+			{
+				min = Math.min(min, v);
+				max = Math.max(max, v);
+			}
+			long range = (long) max - min;
+			if (range <= limit)
+			{
+				return new Decision(Plan.COUNTING, n, -1, distinct, range);
+			}
+		}
+		if (distinct <= sample.length / 2)
+		{
+			return new Decision(Plan.THREE_WAY, n, -1, distinct, -1);
+		}
+		return new Decision(Plan.GENERAL, n, -1, distinct, -1);
+	}
+
+	/**
+	 * 扫描有序段，不超过 maxRuns 段时归并
+	 * @return 段数，超过 maxRuns 时返回 -1，此时 a 中已反转的降序段不影响后续排序
+	 */
+	static int mergeRuns(int[] a, int maxRuns)
+	{
+		int n = a.length;
+		int[] starts = new int[maxRuns + 1];
+		int runs = 0;
+		int i = 0;
+		while (i < n)
+		{
+			if (runs == maxRuns)
+			{
+				return -1;
+			}
+			starts[runs++] = i;
+			int j = i + 1;
+			if (j < n && a[j] < a[i])
+			{
+				while (j < n && a[j] < a[j - 1])
+				{
+					j++;
+				}
+				reverse(a, i, j - 1);
+			}
+			else
+			{
+				while (j < n && a[j] >= a[j - 1])
+				{
+					j++;
+				}
+			}
+			i = j;
+		}
+		starts[runs] = n;
+		if (runs > 1)
+		{
+			mergeAll(a, starts, runs);
+		}
+		return runs;
+	}
+
+	/**
+	 * 逐层两两归并 runs 个有序段，a 与辅助数组交替作为源和目标
+	 */
+	private static void mergeAll(int[] a, int[] starts, int runs)
+	{
+		int[] src = a;
+		int[] dst = new int[a.length];
+		while (runs > 1)
+		{
+			int merged = 0;
+			for (int r = 0; r < runs; r += 2)
+			{
+				if (r + 1 < runs)
+				{
+					ParallelMergeSort.merge(src, starts[r], starts[r + 1], starts[r + 1], starts[r + 2], dst, starts[r]);
+				}
+				else
+				{
+					System.arraycopy(src, starts[r], dst, starts[r], starts[r + 1] - starts[r]);
+				}
+				starts[merged++] = starts[r];
+			}
+			starts[merged] = starts[runs];
+			runs = merged;
+			int[] t = src;
+			src = dst;
+			dst = t;
+		}
+		if (src != a)
+		{
+			System.arraycopy(src, 0, a, 0, a.length);
+		}
+	}
+
+	private static void reverse(int[] a, int i, int j)
+	{
+		while (i < j)
+		{
+			int t = a[i];
+			a[i++] = a[j];
+			a[j--] = t;
+		}
+	}
+
+	/**
+	 * 计数排序
+	 * @param range 准确的值域 max - min
+	 */
+	static void countingSort(int[] a, long range)
+	{
+		int min = a[0];
+		for (int v : a)
+		{
+			min = Math.min(min, v);
+		}
+		int[] counts = new int[(int) range + 1];
+		for (int v : a)
+		{
+			counts[v - min]++;
+		}
+		int k = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			for (int c = counts[i]; c > 0; c--)
+			{
+				a[k++] = min + i;
+			}
+		}
+	}
+
+	/**
+	 * 三路划分快速排序 a[left..right]（包含两端）
+	 */
+	static void threeWaySort(int[] a, int left, int right, int depth)
+	{
+		while (right - left >= INSERTION_THRESHOLD)
+		{
+			if (depth-- == 0)
+			{
+				DualPivotQuickSort.heapSort(a, left, right);
+				return;
+			}
+			int mid = (left + right) >>> 1;
+			int x = a[left], y = a[mid], z = a[right];
+			int pivot = x < y ? (y < z ? y : (x < z ? z : x)) : (x < z ? x : (y < z ? z : y));
+			// [left, lt) < pivot，[lt, i) == pivot，(gt, right] > pivot
+			int lt = left;
+			int gt = right;
+			int i = left;
+			while (i <= gt)
+			{
+				int v = a[i];
+				if (v < pivot)
+				{
+					a[i++] = a[lt];
+					a[lt++] = v;
+				}
+				else if (v > pivot)
+				{
+					a[i] = a[gt];
+					a[gt--] = v;
+				}
+				else
+				{
+					i++;
+				}
+			}
+			if (lt - left < right - gt)
+			{
+				threeWaySort(a, left, lt - 1, depth);
+				left = gt + 1;
+			}
+			else
+			{
+				threeWaySort(a, gt + 1, right, depth);
+				right = lt - 1;
+			}
+		}
+		DualPivotQuickSort.insertionSort(a, left, right);
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class PlannedSortTest
+{
+	public static void main(String[] args)
+	{
+		int[] array = { 119, 3, 9, 120, 5, 7, 2, 110, 40000, -40000 };
+		PlannedSort planned = new PlannedSort(new DualPivotQuickSort(), decision -> System.out.println(decision));
+		planned.showSortResult(array);
+		System.out.println(planned.getLastDecision().getPlan() == PlannedSort.Plan.INSERTION); // 返回 true
+
+		// 每种输入选中的算法
+		Random random = new Random(42);
+		int n = 100000;
+		int[] concatenated = new int[n]; // 10 个有序段拼接
+		for (int i = 0; i < n; i++)
+		{
+			concatenated[i] = (i % 10000) * 10 + i / 10000;
+		}
+		int[] fewDistinct = new int[n]; // 100 个分散的不同值
+		int[] values = SortBenchmark.generate("random", 100, random);
+		for (int i = 0; i < n; i++)
+		{
+			fewDistinct[i] = values[random.nextInt(values.length)];
+		}
+		Map<String, int[]> inputs = new LinkedHashMap<String, int[]>();
+		inputs.put("sorted", SortBenchmark.generate("sorted", n, random));
+		inputs.put("reversed", SortBenchmark.generate("reversed", n, random));
+		inputs.put("concatenated", concatenated);
+		inputs.put("duplicates", SortBenchmark.generate("duplicates", n, random));
+		inputs.put("fewDistinct", fewDistinct);
+		inputs.put("random", SortBenchmark.generate("random", n, random));
+		PlannedSort.Plan[] expected = { PlannedSort.Plan.RUN_MERGE, PlannedSort.Plan.RUN_MERGE, PlannedSort.Plan.RUN_MERGE,
+				PlannedSort.Plan.COUNTING, PlannedSort.Plan.THREE_WAY, PlannedSort.Plan.GENERAL };
+		boolean ok = true;
+		int k = 0;
+		for (int[] input : inputs.values())
+		{
+			int[] sorted = input.clone();
+			Arrays.sort(sorted);
+			planned.sort(input);
+			ok &= Arrays.equals(sorted, input) && planned.getLastDecision().getPlan() == expected[k++];
+		}
+		System.out.println(ok); // 返回 true
+		System.out.println(SortBenchmark.verify(new PlannedSort(), 1000000)); // 返回 true
+		System.out.println(planned.getPlanCounts());
+
+		// 与固定算法的耗时对比
+		Map<String, AbstractSort> engines = new LinkedHashMap<String, AbstractSort>();
+		engines.put("DualPivotQuickSort", new DualPivotQuickSort());
+		engines.put("PlannedSort", new PlannedSort());
+		engines.put("Arrays.sort", SortBenchmark.engines().get("Arrays.sort"));
+		SortBenchmark.run(engines, new int[] { 1000, 1000000 });
+	}
+}
@@ -0,0 +1,97 @@
+package com.cqupt.mauger.behavior;
+
+/**
+ * LSD 基数排序
+ * 	AbstractSort 的实现类，按字节从低到高做 4 趟计数排序，时间复杂度 O(n)，需要 n 个 int 的辅助数组。
+ *
+ * 实现：
+ * 	1）一趟遍历同时统计 4 个字节的直方图。
+ * 	2）最高字节与 0x80 异或，使负数排在正数之前。
+ * 	3）某个字节在所有元素上都相同时跳过这一趟，值域较窄的输入只需要 1~2 趟。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public class RadixSort extends AbstractSort
+{
+	private static final int INSERTION_SORT_THRESHOLD = 64;
+
+	@Override
+	protected void sort(int[] array)
+	{
+		int n = array.length;
+		if (n < INSERTION_SORT_THRESHOLD)
+		{
+			DualPivotQuickSort.insertionSort(array, 0, n - 1);
+			return;
+		}
+
+		int[][] counts = new int[4][257];
+		for (int v : array)
+		{
+			counts[0][(v & 0xFF) + 1]++;
+			counts[1][((v >>> 8) & 0xFF) + 1]++;
+			counts[2][((v >>> 16) & 0xFF) + 1]++;
+			counts[3][((v >>> 24) ^ 0x80) + 1]++;
+		}
+
+		int[] src = array;
+		int[] dst = new int[n];
+		for (int pass = 0; pass < 4; pass++)
+		{
+			int[] count = counts[pass];
+			if (isSingleBucket(count, n))
+			{
+				continue;
+			}
+			for (int i = 0; i < 256; i++)
+			{
+				count[i + 1] += count[i];
+			}
+			int shift = pass << 3;
+			int flip = pass == 3 ? 0x80 : 0;
+			for (int i = 0; i < n; i++)
+			{
+				int v = src[i];
+				dst[count[((v >>> shift) & 0xFF) ^ flip]++] = v;
+			}
+			int[] t = src;
+			src = dst;
+			dst = t;
+		}
+		if (src != array)
+		{
+			System.arraycopy(src, 0, array, 0, n);
+		}
+	}
+
+	private static boolean isSingleBucket(int[] count, int n)
+	{
+		for (int i = 1; i <= 256; i++)
+		{
+			if (count[i] != 0)
+			{
+				return count[i] == n;
+			}
+		}
+		return true;
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class RadixSortTest
+{
+	public static void main(String[] args)
+	{
+		int[] array = { 119, 3, 9, 120, 5, 7, 2, 110, 40000, -40000, Integer.MIN_VALUE, Integer.MAX_VALUE };
+		new RadixSort().showSortResult(array);
+		System.out.println(SortBenchmark.verify(new RadixSort(), 100000)); // 返回 true
+	}
+}
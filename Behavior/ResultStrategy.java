@@ -0,0 +1,414 @@
+package com.cqupt.mauger.behavior;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 有返回值的策略
+ * 	与 Strategy 相同的角色，但接收输入并返回结果，结果可以被 MemoizingContext 缓存。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public interface ResultStrategy<I, R>
+{
+	/**
+	 * @param input 输入，作为缓存的键，需要正确实现 equals 与 hashCode
+	 * @return 结果
+	 */
+	public R doSomething(I input);
+}
+
+
+/**
+ * 有返回值的封装类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class ResultContext<I, R>
+{
+	private final ResultStrategy<I, R> strategy;
+
+	public ResultContext(ResultStrategy<I, R> strategy)
+	{
+		this.strategy = strategy;
+	}
+
+	public R excute(I input)
+	{
+		return strategy.doSomething(input);
+	}
+
+	public ResultStrategy<I, R> getStrategy()
+	{
+		return strategy;
+	}
+}
+
+
+/**
+ * 缓存结果的封装类
+ * 	相同输入的结果只计算一次，之后直接从缓存返回。
+ *
+ * 实现：
+ * 	1）缓存：ConcurrentHashMap 保存每个输入的 CompletableFuture，命中时不加锁。
+ * 	2）去重：同一个输入正在计算时，其他线程等待这次计算的结果，而不是重复计算。计算抛出异常时不缓存，异常传给所有等待者。
+ * 	3）容量淘汰：CLOCK（二次机会）算法。按写入顺序排队，命中时设置访问标记；超出 maximumSize 时从队头取出，
+ * 	       有访问标记的清除标记后放回队尾，没有的淘汰，效果接近 LRU 而命中路径只写一个标记。
+ * 	4）过期淘汰：结果写入 ttl 之后过期，过期的结果在访问或淘汰时移除并重新计算。
+ * 	5）统计：命中、未命中、等待进行中计算、淘汰、过期次数。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class MemoizingContext<I, R> extends ResultContext<I, R>
+{
+	private final int maximumSize;
+	private final long ttlNanos;
+	private final LongSupplier ticker;
+	private final ConcurrentMap<I, Entry<I, R>> cache = new ConcurrentHashMap<I, Entry<I, R>>();
+	private final Queue<Entry<I, R>> clock = new ConcurrentLinkedQueue<Entry<I, R>>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder deduplicated = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+
+	/**
+	 * @param strategy 策略
+	 * @param maximumSize 最多缓存的结果数
+	 * @param ttl 结果的有效期，Long.MAX_VALUE 表示不过期
+	 * @param unit 有效期单位
+	 */
+	public MemoizingContext(ResultStrategy<I, R> strategy, int maximumSize, long ttl, TimeUnit unit)
+	{
+		this(strategy, maximumSize, ttl, unit, System::nanoTime);
+	}
+
+	MemoizingContext(ResultStrategy<I, R> strategy, int maximumSize, long ttl, TimeUnit unit, LongSupplier ticker)
+	{
+		super(strategy);
+		if (maximumSize <= 0 || ttl <= 0)
+		{
+			throw new IllegalArgumentException("缓存配置错误");
+		}
+		this.maximumSize = maximumSize;
+		this.ttlNanos = unit.toNanos(ttl);
+		this.ticker = ticker;
+	}
+
+	@Override
+	public R excute(I input)
+	{
+		while (true)
+		{
+			Entry<I, R> entry = cache.get(input);
+			if (entry != null)
+			{
+				if (!entry.future.isDone())
+				{
+					deduplicated.increment();
+					return join(entry.future);
+				}
+				if (!entry.isExpired(ticker.getAsLong()))
+				{
+					entry.referenced = true;
+					hits.increment();
+					return join(entry.future);
+				}
+				if (cache.remove(input, entry))
+				{
+					size.decrementAndGet();
+					expirations.increment();
+				}
+				continue;
+			}
+			Entry<I, R> created = new Entry<I, R>(input);
+			if (cache.putIfAbsent(input, created) != null)
+			{
+				continue; // 其他线程刚刚开始计算，重新读取
+			}
+			misses.increment();
+			requeue(created);
+			if (size.incrementAndGet() > maximumSize || queued.get() > 2 * maximumSize)
+			{
+				evict();
+			}
+			return compute(input, created);
+		}
+	}
+
+	private R compute(I input, Entry<I, R> entry)
+	{
+		try
+		{
+			R result = getStrategy().doSomething(input);
+			entry.expiresAt = ttlNanos == Long.MAX_VALUE ? Long.MAX_VALUE : ticker.getAsLong() + ttlNanos;
+			entry.future.complete(result);
+			return result;
+		} catch (RuntimeException | Error e)
+		{
+			if (cache.remove(input, entry))
+			{
+				size.decrementAndGet();
+			}
+			entry.future.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private static <R> R join(CompletableFuture<R> future)
+	{
+		try
+		{
+			return future.join();
+		} catch (CompletionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * CLOCK 淘汰，直到数量不超过上限；同时丢弃队列中已被移除的缓存项，队列长度不超过 2 * maximumSize
+	 */
+	private void evict()
+	{
+		long now = ticker.getAsLong();
+		int scanned = 0;
+		Entry<I, R> entry;
+		while ((size.get() > maximumSize || queued.get() > 2 * maximumSize) && (entry = clock.poll()) != null)
+		{
+			queued.decrementAndGet();
+			if (cache.get(entry.key) != entry)
+			{
+				continue; // 已因过期、异常或清空而移除
+			}
+			boolean expired = entry.future.isDone() && entry.isExpired(now);
+			boolean secondChance = entry.referenced || !entry.future.isDone();
+			if (!expired && (size.get() <= maximumSize || secondChance && scanned++ < 2 * maximumSize))
+			{
+				entry.referenced = false; // 二次机会
+				requeue(entry);
+				continue;
+			}
+			if (cache.remove(entry.key, entry))
+			{
+				size.decrementAndGet();
+				if (expired)
+				{
+					expirations.increment();
+				}
+				else
+				{
+					evictions.increment();
+				}
+			}
+		}
+	}
+
+	private void requeue(Entry<I, R> entry)
+	{
+		queued.incrementAndGet();
+		clock.offer(entry);
+	}
+
+	/** 当前缓存的结果数（含进行中的计算） */
+	public int size()
+	{
+		return size.get();
+	}
+
+	/** 清空缓存，进行中的计算不受影响 */
+	public void invalidateAll()
+	{
+		for (I key : cache.keySet())
+		{
+			Entry<I, R> entry = cache.get(key);
+			if (entry != null && entry.future.isDone() && cache.remove(key, entry))
+			{
+				size.decrementAndGet();
+			}
+		}
+	}
+
+	public double getHitRate()
+	{
+		long h = hits.sum() + deduplicated.sum();
+		long total = h + misses.sum();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	public long getHits()
+	{
+		return hits.sum();
+	}
+
+	public long getMisses()
+	{
+		return misses.sum();
+	}
+
+	/** 等待其他线程进行中计算的次数 */
+	public long getDeduplicated()
+	{
+		return deduplicated.sum();
+	}
+
+	public long getEvictions()
+	{
+		return evictions.sum();
+	}
+
+	public long getExpirations()
+	{
+		return expirations.sum();
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("MemoizingContext[size=%d/%d, hitRate=%.3f, hits=%d, misses=%d, deduplicated=%d, evictions=%d, expirations=%d]",
+				size(), maximumSize, getHitRate(), getHits(), getMisses(), getDeduplicated(), getEvictions(), getExpirations());
+	}
+
+	/**
+	 * 缓存项
+	 */
+	private static final class Entry<I, R>
+	{
+		final I key;
+		final CompletableFuture<R> future = new CompletableFuture<R>();
+		volatile long expiresAt = Long.MAX_VALUE;
+		volatile boolean referenced;
+
+		Entry(I key)
+		{
+			this.key = key;
+		}
+
+		boolean isExpired(long now)
+		{
+			return now - expiresAt >= 0 && expiresAt != Long.MAX_VALUE;
+		}
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class ResultStrategyTest
+{
+	/**
+	 * 耗时的策略：求 1 到 n 中的质数个数
+	 */
+	static class PrimeCountStrategy implements ResultStrategy<Integer, Integer>
+	{
+		final AtomicInteger calls = new AtomicInteger();
+
+		public Integer doSomething(Integer n)
+		{
+			calls.incrementAndGet();
+			int count = 0;
+			for (int i = 2; i <= n; i++)
+			{
+				boolean prime = true;
+				for (int j = 2; j * j <= i; j++)
+				{
+					if (i % j == 0)
+					{
+						prime = false;
+						break;
+					}
+				}
+				if (prime)
+				{
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException
+	{
+		final PrimeCountStrategy strategy = new PrimeCountStrategy();
+		final long[] now = { 0 };
+		final MemoizingContext<Integer, Integer> context = new MemoizingContext<Integer, Integer>(strategy, 3, 10,
+				TimeUnit.SECONDS, () -> now[0]);
+
+		System.out.println(context.excute(100) == 25); // 返回 true
+		System.out.println(context.excute(100) == 25 && strategy.calls.get() == 1); // 返回 true，命中缓存
+
+		// 过期
+		now[0] += TimeUnit.SECONDS.toNanos(11);
+		context.excute(100);
+		System.out.println(strategy.calls.get() == 2 && context.getExpirations() == 1); // 返回 true
+
+		// 容量淘汰：100 被再次访问，淘汰的是没有访问标记的 1000
+		context.excute(1000);
+		context.excute(100);
+		context.excute(2000);
+		context.excute(3000);
+		System.out.println(context.size() == 3 && context.getEvictions() == 1); // 返回 true
+		int calls = strategy.calls.get();
+		context.excute(100);
+		System.out.println(strategy.calls.get() == calls); // 返回 true
+
+		// 去重：8 个线程同时请求同一个输入，只计算一次
+		final MemoizingContext<Integer, Integer> shared = new MemoizingContext<Integer, Integer>(strategy, 100,
+				Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[8];
+		calls = strategy.calls.get();
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread(() -> {
+				try
+				{
+					start.await();
+				} catch (InterruptedException e)
+				{
+					return;
+				}
+				shared.excute(3000000);
+			});
+			threads[i].start();
+		}
+		start.countDown();
+		for (Thread t : threads)
+		{
+			t.join();
+		}
+		System.out.println(strategy.calls.get() == calls + 1); // 返回 true
+		System.out.println(context);
+		System.out.println(shared);
+	}
+}
@@ -0,0 +1,413 @@
+package com.cqupt.mauger.behavior;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.cqupt.mauger.benchmark.BenchmarkRunner;
+
+/**
+ * 部分排序（选择）
+ * 	只需要最小的 K 个值、第 n 小的值或者某个百分位数时，不必对整个数组排序。
+ *
+ * 实现：
+ * 	1）nthElement：introselect。三路划分的快速选择，只进入包含第 n 个位置的一侧，平均 O(n)；
+ * 	       轴取三数中值，迭代次数超过 2*log2(n) 后改用中位数的中位数（每 5 个一组）选轴，最坏情况也是 O(n)。
+ * 	       返回后 array[n] 为排序后应在该位置的值，它左边的值都不大于它，右边的值都不小于它。
+ * 	2）smallest / largest：大小为 k 的堆，O(n log k)，返回升序（或降序）的 k 个值，不修改输入。
+ * 	3）median / percentile：在副本上执行 nthElement，不修改输入。百分位数使用最近秩法，偶数个元素的中位数取较小的一个。
+ * 	4）TopK：流式版本，逐个接收元素，只保留当前最小（或最大）的 k 个，适用于无界输入。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public final class Selection
+{
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	private Selection() {}
+
+	/**
+	 * 重排 array，使 array[n] 为第 n 小（从 0 开始）的值
+	 * @return array[n]
+	 */
+	public static int nthElement(int[] array, int n)
+	{
+		return nthElement(array, 0, array.length, n);
+	}
+
+	/**
+	 * 重排 array[from, to)，使 array[n] 为该区间排序后位于 n 的值
+	 * @return array[n]
+	 */
+	public static int nthElement(int[] array, int from, int to, int n)
+	{
+		if (from < 0 || to > array.length || n < from || n >= to)
+		{
+			throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", n: " + n);
+		}
+		return nthElement(array, from, to, n, 2 * (32 - Integer.numberOfLeadingZeros(to - from)));
+	}
+
+	/**
+	 * @param depth 使用三数中值选轴的最大迭代次数，之后改用中位数的中位数
+	 */
+	static int nthElement(int[] a, int from, int to, int n, int depth)
+	{
+		int left = from;
+		int right = to - 1;
+		while (right - left > INSERTION_SORT_THRESHOLD)
+		{
+			int pivot = depth-- > 0 ? medianOf3(a, left, (left + right) >>> 1, right) : medianOfMedians(a, left, right);
+			// 三路划分：[left, lt) < pivot，[lt, gt] == pivot，(gt, right] > pivot
+			int lt = left;
+			int gt = right;
+			int i = left;
+			while (i <= gt)
+			{
+				int v = a[i];
+				if (v < pivot)
+				{
+					a[i++] = a[lt];
+					a[lt++] = v;
+				}
+				else if (v > pivot)
+				{
+					a[i] = a[gt];
+					a[gt--] = v;
+				}
+				else
+				{
+					i++;
+				}
+			}
+			if (n < lt)
+			{
+				right = lt - 1;
+			}
+			else if (n > gt)
+			{
+				left = gt + 1;
+			}
+			else
+			{
+				return a[n];
+			}
+		}
+		DualPivotQuickSort.insertionSort(a, left, right);
+		return a[n];
+	}
+
+	private static int medianOf3(int[] a, int i, int j, int k)
+	{
+		int x = a[i], y = a[j], z = a[k];
+		if (x < y)
+		{
+			return y < z ? y : (x < z ? z : x);
+		}
+		return x < z ? x : (y < z ? z : y);
+	}
+
+	/**
+	 * 中位数的中位数：每 5 个一组取中位数移到区间开头，再选出这些中位数的中位数
+	 */
+	private static int medianOfMedians(int[] a, int left, int right)
+	{
+		int medians = left;
+		for (int start = left; start <= right; start += 5)
+		{
+			int end = Math.min(start + 4, right);
+			DualPivotQuickSort.insertionSort(a, start, end);
+			int m = (start + end) >>> 1;
+			int t = a[medians];
+			a[medians] = a[m];
+			a[m] = t;
+			medians++;
+		}
+		int count = medians - left;
+		return nthElement(a, left, medians, left + count / 2, 0);
+	}
+
+	/**
+	 * 最小的 k 个值，升序，不修改输入
+	 */
+	public static int[] smallest(int[] array, int k)
+	{
+		TopK top = new TopK(k, false);
+		top.offerAll(array, 0, array.length);
+		return top.toSortedArray();
+	}
+
+	/**
+	 * 最大的 k 个值，降序，不修改输入
+	 */
+	public static int[] largest(int[] array, int k)
+	{
+		TopK top = new TopK(k, true);
+		top.offerAll(array, 0, array.length);
+		return top.toSortedArray();
+	}
+
+	/**
+	 * 中位数，偶数个元素时取较小的一个，不修改输入
+	 */
+	public static int median(int[] array)
+	{
+		return percentile(array, 50);
+	}
+
+	/**
+	 * 百分位数（最近秩法），不修改输入
+	 * @param p 0~100
+	 */
+	public static int percentile(int[] array, double p)
+	{
+		if (array.length == 0)
+		{
+			throw new IllegalArgumentException("数组为空");
+		}
+		return nthElement(array.clone(), rank(array.length, p));
+	}
+
+	/**
+	 * 百分位数 p 在长度为 n 的有序数组中的下标
+	 */
+	static int rank(int n, double p)
+	{
+		if (!(p >= 0 && p <= 100))
+		{
+			throw new IllegalArgumentException("百分位数必须在 0~100 之间：" + p);
+		}
+		return Math.max(0, (int) Math.ceil(p / 100 * n) - 1);
+	}
+}
+
+
+/**
+ * 流式 Top-K
+ * 	用大小为 k 的堆保存当前最小（或最大）的 k 个值：求最小值时是大顶堆，堆顶是当前第 k 小的值，
+ * 	新值不小于堆顶时直接丢弃，否则替换堆顶并下沉，每个元素 O(log k)，内存 O(k)。
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class TopK
+{
+	private final int[] heap;
+	private final boolean largest;
+	private int size;
+	private long offered;
+
+	/**
+	 * @param k 保留的个数
+	 * @param largest true 保留最大的 k 个，false 保留最小的 k 个
+	 */
+	public TopK(int k, boolean largest)
+	{
+		if (k < 0)
+		{
+			throw new IllegalArgumentException("k 不能为负数：" + k);
+		}
+		this.heap = new int[k];
+		this.largest = largest;
+	}
+
+	/**
+	 * a 是否应排在 b 之后（离堆顶更近的是“更差”的值）
+	 */
+	private boolean worse(int a, int b)
+	{
+		return largest ? a < b : a > b;
+	}
+
+	public void offer(int value)
+	{
+		offered++;
+		if (size < heap.length)
+		{
+			int i = size++;
+			while (i > 0)
+			{
+				int parent = (i - 1) >>> 1;
+				if (!worse(value, heap[parent]))
+				{
+					break;
+				}
+				heap[i] = heap[parent];
+				i = parent;
+			}
+			heap[i] = value;
+		}
+		else if (size > 0 && worse(heap[0], value))
+		{
+			siftDown(value);
+		}
+	}
+
+	public void offerAll(int[] values, int from, int to)
+	{
+		for (int i = from; i < to; i++)
+		{
+			offer(values[i]);
+		}
+	}
+
+	private void siftDown(int value)
+	{
+		int i = 0;
+		int child;
+		while ((child = 2 * i + 1) < size)
+		{
+			if (child + 1 < size && worse(heap[child + 1], heap[child]))
+			{
+				child++;
+			}
+			if (!worse(heap[child], value))
+			{
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = value;
+	}
+
+	/** 已保留的个数 */
+	public int size()
+	{
+		return size;
+	}
+
+	/** 已接收的元素个数 */
+	public long getOffered()
+	{
+		return offered;
+	}
+
+	/**
+	 * 当前第 k 小（或第 k 大）的值，即新值进入 Top-K 的门槛
+	 */
+	public int threshold()
+	{
+		if (size == 0)
+		{
+			throw new IllegalStateException("尚未接收任何元素");
+		}
+		return heap[0];
+	}
+
+	/**
+	 * 当前保留的值，最小值时升序，最大值时降序
+	 */
+	public int[] toSortedArray()
+	{
+		int[] result = Arrays.copyOf(heap, size);
+		Arrays.sort(result);
+		if (largest)
+		{
+			for (int i = 0, j = result.length - 1; i < j; i++, j--)
+			{
+				int t = result[i];
+				result[i] = result[j];
+				result[j] = t;
+			}
+		}
+		return result;
+	}
+}
+
+
+/**
+ * 部分排序
+ * 	AbstractSort 的实现类，只把最小的 k 个值按升序放到数组开头，其余位置的顺序不确定，O(n + k log k)。
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class PartialSort extends AbstractSort
+{
+	private final int k;
+
+	public PartialSort(int k)
+	{
+		this.k = k;
+	}
+
+	@Override
+	protected void sort(int[] array)
+	{
+		int n = Math.min(k, array.length);
+		if (n == 0)
+		{
+			return;
+		}
+		if (n < array.length)
+		{
+			Selection.nthElement(array, n - 1);
+		}
+		DualPivotQuickSort.sortRange(array, 0, n - 1);
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class SelectionTest
+{
+	public static void main(String[] args)
+	{
+		int[] array = { 119, 3, 9, 120, 5, 7, 2, 110, 40000, -40000 };
+		new PartialSort(3).showSortResult(array.clone());
+		System.out.println(Arrays.toString(Selection.smallest(array, 3))); // [-40000, 2, 3]
+		System.out.println(Arrays.toString(Selection.largest(array, 3))); // [40000, 120, 119]
+		System.out.println(Selection.median(array) == 7); // 返回 true，偶数个元素取较小的中位数
+
+		// 与完整排序的结果对比
+		Random random = new Random(42);
+		boolean ok = true;
+		for (String distribution : SortBenchmark.DISTRIBUTIONS)
+		{
+			for (int n : new int[] { 1, 17, 1000, 100000 })
+			{
+				int[] data = SortBenchmark.generate(distribution, n, random);
+				int[] sorted = data.clone();
+				Arrays.sort(sorted);
+				int nth = random.nextInt(n);
+				ok &= Selection.nthElement(data.clone(), nth) == sorted[nth];
+				ok &= Selection.nthElement(data.clone(), 0, n, nth, 0) == sorted[nth]; // 只用中位数的中位数
+				ok &= Selection.percentile(data, 99) == sorted[Selection.rank(n, 99)];
+				int k = Math.min(n, 10);
+				ok &= Arrays.equals(Selection.smallest(data, k), Arrays.copyOf(sorted, k));
+				int[] partial = data.clone();
+				new PartialSort(k).sort(partial);
+				ok &= Arrays.equals(Arrays.copyOf(partial, k), Arrays.copyOf(sorted, k));
+			}
+		}
+		System.out.println(ok); // 返回 true
+
+		// 流式 Top-K
+		TopK top = new TopK(5, true);
+		for (int i = 0; i < 1000000; i++)
+		{
+			top.offer(random.nextInt(1000000));
+		}
+		System.out.println(top.size() == 5 && top.getOffered() == 1000000); // 返回 true
+		System.out.println(Arrays.toString(top.toSortedArray()));
+
+		// 与完整排序的耗时对比，每次操作都包含一次数组拷贝
+		final int[] data = SortBenchmark.generate("random", 1000000, random);
+		BenchmarkRunner runner = new BenchmarkRunner(1000, 2000, 1);
+		BenchmarkRunner.printHeader();
+		System.out.println(runner.run("sort+index", 1, () -> {
+			int[] copy = data.clone();
+			Arrays.sort(copy);
+			return copy[copy.length / 2];
+		}));
+		System.out.println(runner.run("median", 1, () -> Selection.median(data)));
+		System.out.println(runner.run("smallest(100)", 1, () -> Selection.smallest(data, 100)));
+	}
+}
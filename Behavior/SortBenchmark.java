@@ -0,0 +1,170 @@
+package com.cqupt.mauger.behavior;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.cqupt.mauger.benchmark.BenchmarkRunner;
+
+/**
+ * 排序基准测试
+ *
+ * 说明：
+ * 	比较 AbstractSort 各实现类在随机、已排序、逆序、大量重复值四种输入上的耗时。
+ * 	每次测量前把原始数据拷贝到工作数组，拷贝不计入耗时；先预热，再取多次测量的 p50 与最小值。
+ * 	TemplateMethod 是 O(n²) 的选择排序，只在 n 不超过 TEMPLATE_METHOD_LIMIT 时参与比较。
+ *
+ * 运行：
+ * 	java com.cqupt.mauger.behavior.SortBenchmark [n1 n2 ...]
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public class SortBenchmark
+{
+	public static final String[] DISTRIBUTIONS = { "random", "sorted", "reversed", "duplicates" };
+
+	private static final int TEMPLATE_METHOD_LIMIT = 50000;
+	private static final int WARMUP = 3;
+	private static final int ITERATIONS = 7;
+
+	public static void main(String[] args)
+	{
+		int[] sizes = { 10000, 1000000, 10000000 };
+		if (args.length > 0)
+		{
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++)
+			{
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+		run(engines(), sizes);
+	}
+
+	/**
+	 * 参与比较的排序实现
+	 */
+	static Map<String, AbstractSort> engines()
+	{
+		Map<String, AbstractSort> engines = new LinkedHashMap<String, AbstractSort>();
+		engines.put("TemplateMethod", new TemplateMethod());
+		engines.put("DualPivotQuickSort", new DualPivotQuickSort());
+		engines.put("RadixSort", new RadixSort());
+		engines.put("ParallelMergeSort", new ParallelMergeSort());
+		engines.put("VectorSort", new VectorSort());
+		engines.put("PlannedSort", new PlannedSort());
+		engines.put("Arrays.sort", new AbstractSort()
+		{
+			@Override
+			protected void sort(int[] array)
+			{
+				Arrays.sort(array);
+			}
+		});
+		return engines;
+	}
+
+	static void run(Map<String, AbstractSort> engines, int[] sizes)
+	{
+		System.out.println(String.format("%-24s %-12s %10s %12s %12s", "Sort", "Input", "n", "p50 ms", "min ms"));
+		for (int n : sizes)
+		{
+			for (String distribution : DISTRIBUTIONS)
+			{
+				int[] data = generate(distribution, n, new Random(n));
+				int[] work = new int[n];
+				for (Map.Entry<String, AbstractSort> engine : engines.entrySet())
+				{
+					if (engine.getValue() instanceof TemplateMethod && n > TEMPLATE_METHOD_LIMIT)
+					{
+						continue;
+					}
+					long[] nanos = new long[ITERATIONS];
+					for (int i = -WARMUP; i < ITERATIONS; i++)
+					{
+						System.arraycopy(data, 0, work, 0, n);
+						long t0 = System.nanoTime();
+						engine.getValue().sort(work);
+						long t1 = System.nanoTime();
+						if (i >= 0)
+						{
+							nanos[i] = t1 - t0;
+						}
+					}
+					Arrays.sort(nanos);
+					System.out.println(String.format("%-24s %-12s %10d %12.3f %12.3f", engine.getKey(), distribution, n,
+							BenchmarkRunner.percentile(nanos, 0.5) / 1e6, nanos[0] / 1e6));
+				}
+			}
+		}
+	}
+
+	/**
+	 * 生成测试数据
+	 * @param distribution random、sorted、reversed 或 duplicates
+	 * @param n 元素个数
+	 * @param random 随机数发生器
+	 * @return 测试数据
+	 */
+	public static int[] generate(String distribution, int n, Random random)
+	{
+		int[] data = new int[n];
+		switch (distribution)
+		{
+			case "sorted":
+				for (int i = 0; i < n; i++)
+				{
+					data[i] = i;
+				}
+				break;
+			case "reversed":
+				for (int i = 0; i < n; i++)
+				{
+					data[i] = n - i;
+				}
+				break;
+			case "duplicates":
+				for (int i = 0; i < n; i++)
+				{
+					data[i] = random.nextInt(16);
+				}
+				break;
+			default:
+				for (int i = 0; i < n; i++)
+				{
+					data[i] = random.nextInt();
+				}
+				break;
+		}
+		return data;
+	}
+
+	/**
+	 * 用 Arrays.sort 的结果校验排序实现
+	 * @param sort 排序实现
+	 * @param n 每种输入的元素个数
+	 * @return 所有输入的结果都正确时返回 true
+	 */
+	public static boolean verify(AbstractSort sort, int n)
+	{
+		Random random = new Random(42);
+		for (String distribution : DISTRIBUTIONS)
+		{
+			for (int size : new int[] { 0, 1, 2, 31, 1000, n })
+			{
+				int[] data = generate(distribution, size, random);
+				int[] expected = data.clone();
+				Arrays.sort(expected);
+				sort.sort(data);
+				if (!Arrays.equals(expected, data))
+				{
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,529 @@
+package com.cqupt.mauger.behavior;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+import com.cqupt.mauger.output.OutputSink;
+
+/**
+ * 增量有序集合
+ * 	反复追加少量元素后再输出排序结果时，AbstractSort.showSortResult 每次都对整个数组重新排序。
+ * 	SortedRuns 按 LSM 树的思路只对新追加的元素排序，已排序的部分不再参与排序。
+ *
+ * 实现：
+ * 	1）写缓冲：add 把元素追加到容量为 bufferSize 的 int 数组，写满时用 AbstractSort 排序后冻结为一个不可变的有序段（run）。
+ * 	2）后台归并：冻结后唤醒归并线程，按大小分层的规则合并：两个最小的段大小相差不超过一倍，或段数超过 maxRuns 时归并这两个段，
+ * 	       段数保持在 O(log n)，每个元素平均只被归并 O(log n) 次。归并在锁外进行，完成后在锁内替换快照。
+ * 	3）读取：有序段列表是写时复制的不可变数组，读取时取一次快照，再加上排序后的写缓冲副本，用小顶堆做多路归并；
+ * 	       forEach(IntConsumer) 与 iterator()（PrimitiveIterator.OfInt）都不装箱，开销为 O(n log r)，r 为段数。
+ * 	4）contains 在每个段上二分查找。
+ *
+ * 注意事项：
+ * 	可以并发写入与读取，读取看到的是调用时刻的快照；不再使用时调用 close() 停止归并线程。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public class SortedRuns implements AutoCloseable
+{
+	private static final int[][] NO_RUNS = new int[0][];
+
+	private final AbstractSort sorter;
+	private final int bufferSize;
+	private final int maxRuns;
+	private final Object lock = new Object();
+	private final ExecutorService merger;
+	private final AtomicBoolean mergeScheduled = new AtomicBoolean();
+
+	private int[] buffer; // 由 lock 保护
+	private int buffered; // 由 lock 保护
+	private volatile int[][] runs = NO_RUNS;
+	private volatile long size;
+
+	private final LongAdder flushes = new LongAdder();
+	private final LongAdder merges = new LongAdder();
+	private final LongAdder mergedElements = new LongAdder();
+
+	/**
+	 * 写缓冲 4096 个元素，用 PlannedSort 排序，最多 16 个有序段
+	 */
+	public SortedRuns()
+	{
+		this(4096, 16, new PlannedSort());
+	}
+
+	/**
+	 * @param bufferSize 写缓冲的容量
+	 * @param maxRuns 有序段个数的上限，超过时强制归并
+	 * @param sorter 写缓冲冻结时使用的排序
+	 */
+	public SortedRuns(int bufferSize, int maxRuns, AbstractSort sorter)
+	{
+		if (bufferSize <= 0 || maxRuns < 2)
+		{
+			throw new IllegalArgumentException("有序集合配置错误");
+		}
+		this.bufferSize = bufferSize;
+		this.buffer = new int[bufferSize];
+		this.maxRuns = maxRuns;
+		this.sorter = sorter;
+		this.merger = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "sorted-runs-merger");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	public void add(int value)
+	{
+		synchronized (lock)
+		{
+			buffer[buffered++] = value;
+			size++;
+			if (buffered == buffer.length)
+			{
+				flush();
+			}
+		}
+	}
+
+	public void addAll(int... values)
+	{
+		synchronized (lock)
+		{
+			int i = 0;
+			while (i < values.length)
+			{
+				int n = Math.min(values.length - i, buffer.length - buffered);
+				System.arraycopy(values, i, buffer, buffered, n);
+				buffered += n;
+				size += n;
+				i += n;
+				if (buffered == buffer.length)
+				{
+					flush();
+				}
+			}
+		}
+	}
+
+	/**
+	 * 冻结写缓冲，调用方持有 lock
+	 */
+	private void flush()
+	{
+		int[] run = buffer;
+		sorter.sort(run);
+		buffer = new int[bufferSize];
+		buffered = 0;
+		int[][] current = runs;
+		int[][] next = Arrays.copyOf(current, current.length + 1);
+		next[current.length] = run;
+		runs = next;
+		flushes.increment();
+		if (mergeScheduled.compareAndSet(false, true))
+		{
+			merger.execute(this::mergeLoop);
+		}
+	}
+
+	/**
+	 * 归并线程：按规则归并，直到不再需要归并
+	 */
+	private void mergeLoop()
+	{
+		mergeScheduled.set(false);
+		int[][] snapshot;
+		while ((snapshot = runs).length > 1)
+		{
+			int a = -1;
+			int b = -1;
+			for (int i = 0; i < snapshot.length; i++)
+			{
+				if (a < 0 || snapshot[i].length < snapshot[a].length)
+				{
+					b = a;
+					a = i;
+				}
+				else if (b < 0 || snapshot[i].length < snapshot[b].length)
+				{
+					b = i;
+				}
+			}
+			if (snapshot.length <= maxRuns && snapshot[b].length > 2 * snapshot[a].length)
+			{
+				return;
+			}
+			mergePair(snapshot[a], snapshot[b]);
+		}
+	}
+
+	/**
+	 * 归并两个段并替换快照；只有归并线程会移除段，两个段一定仍在快照中
+	 */
+	private void mergePair(int[] x, int[] y)
+	{
+		int[] merged = new int[x.length + y.length];
+		mergeInto(x, y, merged);
+		synchronized (lock)
+		{
+			int[][] current = runs;
+			int[][] next = new int[current.length - 1][];
+			int k = 0;
+			for (int[] run : current)
+			{
+				if (run != x && run != y)
+				{
+					next[k++] = run;
+				}
+			}
+			next[k] = merged;
+			runs = next;
+		}
+		merges.increment();
+		mergedElements.add(merged.length);
+	}
+
+	private static void mergeInto(int[] x, int[] y, int[] dst)
+	{
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (i < x.length && j < y.length)
+		{
+			dst[k++] = x[i] <= y[j] ? x[i++] : y[j++];
+		}
+		System.arraycopy(x, i, dst, k, x.length - i);
+		System.arraycopy(y, j, dst, k + x.length - i, y.length - j);
+	}
+
+	/**
+	 * 当前的有序段加上排序后的写缓冲副本
+	 */
+	private int[][] snapshot()
+	{
+		int[] tail;
+		int[][] current;
+		synchronized (lock)
+		{
+			tail = Arrays.copyOf(buffer, buffered);
+			current = runs;
+		}
+		if (tail.length == 0)
+		{
+			return current;
+		}
+		sorter.sort(tail);
+		int[][] all = Arrays.copyOf(current, current.length + 1);
+		all[current.length] = tail;
+		return all;
+	}
+
+	/** 元素个数 */
+	public long size()
+	{
+		return size;
+	}
+
+	/** 当前有序段的个数，不含写缓冲 */
+	public int getRunCount()
+	{
+		return runs.length;
+	}
+
+	public boolean contains(int value)
+	{
+		for (int[] run : snapshot())
+		{
+			if (Arrays.binarySearch(run, value) >= 0)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 按升序遍历所有元素，不装箱
+	 */
+	public void forEach(IntConsumer action)
+	{
+		RunMerger m = new RunMerger(snapshot());
+		while (m.hasNext())
+		{
+			action.accept(m.nextInt());
+		}
+	}
+
+	/**
+	 * 升序迭代器，nextInt() 不装箱
+	 */
+	public PrimitiveIterator.OfInt iterator()
+	{
+		return new RunMerger(snapshot());
+	}
+
+	/**
+	 * 升序的全部元素
+	 */
+	public int[] toArray()
+	{
+		int[][] all = snapshot();
+		long n = 0;
+		for (int[] run : all)
+		{
+			n += run.length;
+		}
+		int[] result = new int[Math.toIntExact(n)];
+		RunMerger m = new RunMerger(all);
+		for (int i = 0; i < result.length; i++)
+		{
+			result[i] = m.nextInt();
+		}
+		return result;
+	}
+
+	/**
+	 * 打印出排序后的全部元素，只对追加后尚未排序的部分排序
+	 */
+	public void showSortResult()
+	{
+		OutputSink.get().printArray(toArray());
+	}
+
+	/**
+	 * 等待已触发的后台归并完成
+	 */
+	public void awaitMerges() throws InterruptedException
+	{
+		try
+		{
+			merger.submit(() -> {}).get(); // 归并线程只有一个，排在它之前的归并都已完成
+		} catch (ExecutionException e)
+		{
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	public long getFlushes()
+	{
+		return flushes.sum();
+	}
+
+	public long getMerges()
+	{
+		return merges.sum();
+	}
+
+	/**
+	 * 写放大：每个冻结的元素平均被归并写出的次数
+	 */
+	public double getWriteAmplification()
+	{
+		long frozen = flushes.sum() * bufferSize;
+		return frozen == 0 ? 0 : (double) mergedElements.sum() / frozen;
+	}
+
+	@Override
+	public void close()
+	{
+		merger.shutdown();
+		try
+		{
+			merger.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("SortedRuns[size=%d, runs=%d, flushes=%d, merges=%d, writeAmplification=%.2f]",
+				size(), getRunCount(), getFlushes(), getMerges(), getWriteAmplification());
+	}
+
+	/**
+	 * 多路归并：小顶堆中保存段的下标，按段的当前元素比较
+	 */
+	private static final class RunMerger implements PrimitiveIterator.OfInt
+	{
+		private final int[][] runs;
+		private final int[] positions;
+		private final int[] heap;
+		private int heapSize;
+
+		RunMerger(int[][] runs)
+		{
+			this.runs = runs;
+			this.positions = new int[runs.length];
+			this.heap = new int[runs.length];
+			for (int r = 0; r < runs.length; r++)
+			{
+				if (runs[r].length > 0)
+				{
+					heap[heapSize++] = r;
+				}
+			}
+			for (int i = heapSize / 2 - 1; i >= 0; i--)
+			{
+				siftDown(i);
+			}
+		}
+
+		private int head(int r)
+		{
+			return runs[r][positions[r]];
+		}
+
+		private void siftDown(int i)
+		{
+			int r = heap[i];
+			int v = head(r);
+			int child;
+			while ((child = 2 * i + 1) < heapSize)
+			{
+				if (child + 1 < heapSize && head(heap[child + 1]) < head(heap[child]))
+				{
+					child++;
+				}
+				if (head(heap[child]) >= v)
+				{
+					break;
+				}
+				heap[i] = heap[child];
+				i = child;
+			}
+			heap[i] = r;
+		}
+
+		public boolean hasNext()
+		{
+			return heapSize > 0;
+		}
+
+		public int nextInt()
+		{
+			if (heapSize == 0)
+			{
+				throw new NoSuchElementException();
+			}
+			int r = heap[0];
+			int v = runs[r][positions[r]++];
+			if (positions[r] == runs[r].length)
+			{
+				heap[0] = heap[--heapSize];
+			}
+			if (heapSize > 0)
+			{
+				siftDown(0);
+			}
+			return v;
+		}
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class SortedRunsTest
+{
+	public static void main(String[] args) throws Exception
+	{
+		try (SortedRuns small = new SortedRuns(4, 4, new DualPivotQuickSort()))
+		{
+			small.addAll(119, 3, 9, 120, 5, 7, 2, 110);
+			small.add(40000);
+			small.add(-40000);
+			small.showSortResult(); // [-40000, 2, 3, 5, 7, 9, 110, 119, 120, 40000]
+			System.out.println(small.contains(110) && !small.contains(111)); // 返回 true
+		}
+
+		// 4 个线程并发追加，结果与整体排序相同
+		Random random = new Random(42);
+		final int[] data = SortBenchmark.generate("random", 400000, random);
+		try (final SortedRuns runs = new SortedRuns(1024, 16, new PlannedSort()))
+		{
+			Thread[] writers = new Thread[4];
+			for (int t = 0; t < writers.length; t++)
+			{
+				final int from = t * 100000;
+				writers[t] = new Thread(() -> {
+					for (int i = from; i < from + 100000; i += 10)
+					{
+						runs.addAll(Arrays.copyOfRange(data, i, i + 10));
+					}
+				});
+				writers[t].start();
+			}
+			for (Thread t : writers)
+			{
+				t.join();
+			}
+			runs.awaitMerges();
+			int[] expected = data.clone();
+			Arrays.sort(expected);
+			System.out.println(Arrays.equals(expected, runs.toArray())); // 返回 true
+			final long[] checksum = { 0, Integer.MIN_VALUE, 1 };
+			runs.forEach(v -> {
+				checksum[0] += v;
+				checksum[2] &= checksum[1] <= v ? 1 : 0;
+				checksum[1] = v;
+			});
+			System.out.println(checksum[2] == 1 && checksum[0] == Arrays.stream(data).asLongStream().sum()); // 返回 true
+			System.out.println(runs.getRunCount() <= 16); // 返回 true
+			System.out.println(runs);
+		}
+
+		// 每追加 10 个元素读取一次有序结果：整体重新排序与增量有序集合的对比
+		int initial = 1000000;
+		int steps = 200;
+		int[] base = SortBenchmark.generate("random", initial + steps * 10, random);
+		AbstractSort sort = new DualPivotQuickSort();
+		int[] array = Arrays.copyOf(base, initial);
+		long sink = 0;
+		long t0 = System.nanoTime();
+		for (int s = 0; s < steps; s++)
+		{
+			int n = array.length;
+			array = Arrays.copyOf(array, n + 10);
+			System.arraycopy(base, initial + s * 10, array, n, 10);
+			int[] copy = array.clone(); // 保持“追加后重新排序”的输入不变
+			sort.sort(copy);
+			sink += copy[copy.length / 2];
+		}
+		long t1 = System.nanoTime();
+		try (SortedRuns runs = new SortedRuns())
+		{
+			runs.addAll(Arrays.copyOf(base, initial));
+			long t2 = System.nanoTime();
+			for (int s = 0; s < steps; s++)
+			{
+				runs.addAll(Arrays.copyOfRange(base, initial + s * 10, initial + s * 10 + 10));
+				int[] sorted = runs.toArray();
+				sink += sorted[sorted.length / 2];
+			}
+			long t3 = System.nanoTime();
+			System.out.println(String.format("追加后重新排序：%.2f ms/次", (t1 - t0) / 1e6 / steps));
+			System.out.println(String.format("SortedRuns：%.2f ms/次，初始 %d 个元素用时 %.1f ms", (t3 - t2) / 1e6 / steps,
+					initial, (t2 - t1) / 1e6));
+			System.out.println(runs);
+		}
+		System.out.println(sink != 0);
+	}
+}
@@ -1,5 +1,7 @@
 package com.cqupt.mauger.behavior;
 
+import com.cqupt.mauger.output.OutputSink;
+
 /**
  * 策略模式 Strategy Pattern
  * 
@@ -55,7 +57,7 @@ class StrategyA implements Strategy
 {
 	public void doSomething()
 	{
-		System.out.println("具体策略A.");
+		OutputSink.get().println("具体策略A.");
 	}
 }
 
@@ -69,7 +71,7 @@ class StrategyA implements Strategy
 class StrategyB implements Strategy
 {
 	public void doSomething() {
-		System.out.println("具体策略B.");
+		OutputSink.get().println("具体策略B.");
 	}
 }
 
@@ -93,6 +95,11 @@ class Context
 	{
 		strategy.doSomething();
 	}
+	
+	public Strategy getStrategy()
+	{
+		return strategy;
+	}
 }
 
 
@@ -0,0 +1,217 @@
+package com.cqupt.mauger.behavior;
+
+import java.io.File;
+import java.util.function.Supplier;
+
+import com.cqupt.mauger.benchmark.BenchmarkRunner;
+
+/**
+ * 批量策略基准测试
+ *
+ * 说明：
+ * 	比较逐项调用 Context.excute() 与一次 BatchContext.excute() 处理整批工作项的开销，每次操作处理 ITEMS 个工作项。
+ * 	调用点按出现的策略类型数分为单态（1 种）、双态（2 种）、多态（4 种）。
+ * 	JIT 的类型剖析是全局的，同一个 JVM 里先跑的形态会污染后跑的形态，因此每种形态在单独的子进程中运行。
+ * 	1）single：逐项调用 Context.excute()，每项一次接口分派。
+ * 	2）adapter：单项策略经 BatchStrategy.of 适配，每批一次分派，批内仍逐项调用 doSomething()。
+ * 	3）batch：原生批量策略，每批一次分派，批内循环可被内联优化。
+ *
+ * 运行：
+ * 	java com.cqupt.mauger.behavior.StrategyBatchBenchmark [monomorphic|bimorphic|megamorphic]
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public class StrategyBatchBenchmark
+{
+	static final int ITEMS = 1024;
+
+	private static final String[] SHAPES = { "monomorphic", "bimorphic", "megamorphic" };
+
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length == 0)
+		{
+			String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+			String classpath = System.getProperty("java.class.path");
+			System.out.println("ns/op 为处理 " + ITEMS + " 个工作项的耗时");
+			BenchmarkRunner.printHeader();
+			for (String shape : SHAPES)
+			{
+				new ProcessBuilder(java, "-cp", classpath, StrategyBatchBenchmark.class.getName(), shape)
+						.inheritIO().start().waitFor();
+			}
+			return;
+		}
+		run(args[0]);
+	}
+
+	static void run(String shape)
+	{
+		int types = "monomorphic".equals(shape) ? 1 : "bimorphic".equals(shape) ? 2 : 4;
+		CountingStrategy[] strategies = {
+			new Counting1(), new Counting2(), new Counting3(), new Counting4()
+		};
+		final Context[] contexts = new Context[types];
+		final BatchContext<?>[] adapters = new BatchContext<?>[types];
+		final BatchContext<?>[] batches = new BatchContext<?>[types];
+		for (int i = 0; i < types; i++)
+		{
+			contexts[i] = new Context(strategies[i]);
+			adapters[i] = new BatchContext<Object>(BatchStrategy.<Object>of(strategies[i]));
+			batches[i] = new BatchContext<Object>(strategies[i]::doBatch);
+		}
+		final Object[] items = new Object[ITEMS];
+
+		BenchmarkRunner runner = new BenchmarkRunner(500, 1000, 16);
+		print(runner, shape + ".single", () -> {
+			for (int i = 0; i < ITEMS; i++)
+			{
+				contexts[i % contexts.length].excute();
+			}
+			return items;
+		});
+		print(runner, shape + ".adapter", batchOp(adapters, items));
+		print(runner, shape + ".batch", batchOp(batches, items));
+
+		long sum = 0;
+		for (CountingStrategy s : strategies)
+		{
+			sum += s.state();
+		}
+		if (sum == 42)
+		{
+			System.out.println(sum); // 几乎不会执行，仅用于阻止结果被消除
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Supplier<?> batchOp(final BatchContext<?>[] contexts, final Object[] items)
+	{
+		// 与 single 一样，每个工作项轮流交给不同类型的策略，只是按批次分派
+		final int chunk = ITEMS / contexts.length;
+		return () -> {
+			for (int i = 0; i < contexts.length; i++)
+			{
+				((BatchContext<Object>) contexts[i]).excute(items, i * chunk, (i + 1) * chunk);
+			}
+			return items;
+		};
+	}
+
+	private static void print(BenchmarkRunner runner, String name, Supplier<?> op)
+	{
+		System.out.println(runner.run(name, 1, op));
+	}
+
+	/**
+	 * 计数策略，每个工作项做一次不可折叠的运算；每个实现类各自实现两个方法，避免共用父类方法里的调用点
+	 */
+	interface CountingStrategy extends Strategy
+	{
+		void doBatch(Object[] items, int from, int to);
+
+		long state();
+	}
+
+	static final class Counting1 implements CountingStrategy
+	{
+		private long state;
+
+		public void doSomething()
+		{
+			state = state * 31 + 1;
+		}
+
+		public void doBatch(Object[] items, int from, int to)
+		{
+			long s = state;
+			for (int i = from; i < to; i++)
+			{
+				s = s * 31 + 1;
+			}
+			state = s;
+		}
+
+		public long state()
+		{
+			return state;
+		}
+	}
+
+	static final class Counting2 implements CountingStrategy
+	{
+		private long state;
+
+		public void doSomething()
+		{
+			state = state * 31 + 2;
+		}
+
+		public void doBatch(Object[] items, int from, int to)
+		{
+			long s = state;
+			for (int i = from; i < to; i++)
+			{
+				s = s * 31 + 2;
+			}
+			state = s;
+		}
+
+		public long state()
+		{
+			return state;
+		}
+	}
+
+	static final class Counting3 implements CountingStrategy
+	{
+		private long state;
+
+		public void doSomething()
+		{
+			state = state * 31 + 3;
+		}
+
+		public void doBatch(Object[] items, int from, int to)
+		{
+			long s = state;
+			for (int i = from; i < to; i++)
+			{
+				s = s * 31 + 3;
+			}
+			state = s;
+		}
+
+		public long state()
+		{
+			return state;
+		}
+	}
+
+	static final class Counting4 implements CountingStrategy
+	{
+		private long state;
+
+		public void doSomething()
+		{
+			state = state * 31 + 4;
+		}
+
+		public void doBatch(Object[] items, int from, int to)
+		{
+			long s = state;
+			for (int i = from; i < to; i++)
+			{
+				s = s * 31 + 4;
+			}
+			state = s;
+		}
+
+		public long state()
+		{
+			return state;
+		}
+	}
+}
@@ -0,0 +1,477 @@
+package com.cqupt.mauger.behavior;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 责任链模式 Chain Of Responsibility Pattern
+ *
+ * 类型：
+ * 	行为型模式
+ *
+ * 定义：
+ * 	使多个对象都有机会处理请求，将这些对象连成一条链，并沿着这条链传递该请求。
+ * 	这里链上的每个节点（阶段）是一个 Strategy，一次请求依次经过所有阶段，任何一个阶段抛出异常都会中止后续阶段。
+ *
+ * 实现：
+ * 	1）阶段：then() 添加顺序阶段；fanOut() 添加并行阶段，多个分支在 ForkJoinPool 上并行执行，全部完成后才进入下一个阶段。
+ * 	       调用线程本身是该线程池的工作线程时使用 fork/join，空闲的工作线程可以窃取分支。
+ * 	2）执行：doSomething() 在调用线程上执行；submit() 异步执行，每个执行段是线程池上的一个任务，段与段之间交给下一个任务。
+ * 	3）融合：每个阶段记录自己的耗时，每执行 REPLAN_PERIOD 次重新划分执行段，相邻的平均耗时低于 fuseThreshold 的顺序阶段
+ * 	       合并为一个执行段，省去它们之间的任务交接。
+ * 	4）报告：getStageStats() 返回每个阶段的执行次数、平均耗时与所在执行段，getSlowestStage() 返回平均耗时最大的阶段。
+ *
+ * 注意事项：
+ * 	流水线本身也是一个 Strategy，可以作为另一条流水线的阶段或分支。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class StrategyPipeline implements Strategy
+{
+	/** 每执行多少次重新划分执行段 */
+	static final int REPLAN_PERIOD = 256;
+	/** 阶段至少执行多少次才参与融合 */
+	static final int MIN_SAMPLES = 16;
+
+	private final ForkJoinPool pool;
+	private final long fuseThresholdNanos;
+	private final List<Stage> stages = new ArrayList<Stage>();
+	private volatile Segment[] plan = new Segment[0];
+	private final AtomicLong executions = new AtomicLong();
+
+	/**
+	 * 使用公共线程池，平均耗时低于 20 微秒的相邻顺序阶段融合
+	 */
+	public StrategyPipeline()
+	{
+		this(ForkJoinPool.commonPool(), 20, TimeUnit.MICROSECONDS);
+	}
+
+	/**
+	 * @param pool 执行并行分支与异步执行段的线程池
+	 * @param fuseThreshold 融合阈值
+	 * @param unit 阈值单位
+	 */
+	public StrategyPipeline(ForkJoinPool pool, long fuseThreshold, TimeUnit unit)
+	{
+		this.pool = pool;
+		this.fuseThresholdNanos = unit.toNanos(fuseThreshold);
+	}
+
+	/**
+	 * 添加顺序阶段
+	 */
+	public synchronized StrategyPipeline then(String name, Strategy strategy)
+	{
+		stages.add(new SequentialStage(name, strategy));
+		replan();
+		return this;
+	}
+
+	/**
+	 * 添加并行阶段，所有分支完成后进入下一个阶段
+	 */
+	public synchronized StrategyPipeline fanOut(String name, Strategy... branches)
+	{
+		if (branches.length == 0)
+		{
+			throw new IllegalArgumentException("并行阶段至少需要一个分支：" + name);
+		}
+		stages.add(new ParallelStage(name, branches.clone()));
+		replan();
+		return this;
+	}
+
+	/**
+	 * 在调用线程上执行整条流水线
+	 */
+	public void doSomething()
+	{
+		for (Segment segment : currentPlan())
+		{
+			segment.run();
+		}
+	}
+
+	/**
+	 * 异步执行整条流水线，每个执行段是线程池上的一个任务
+	 * @return 全部阶段完成时完成，某个阶段失败时以该异常完成
+	 */
+	public CompletableFuture<Void> submit()
+	{
+		CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+		for (Segment segment : currentPlan())
+		{
+			future = future.thenRunAsync(segment, pool);
+		}
+		return future;
+	}
+
+	private Segment[] currentPlan()
+	{
+		if (executions.incrementAndGet() % REPLAN_PERIOD == 0)
+		{
+			synchronized (this)
+			{
+				replan();
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * 按各阶段当前的平均耗时重新划分执行段，调用方持有 this 锁
+	 */
+	private void replan()
+	{
+		List<Segment> segments = new ArrayList<Segment>();
+		List<Stage> fused = new ArrayList<Stage>();
+		for (Stage stage : stages)
+		{
+			if (isCheap(stage))
+			{
+				fused.add(stage);
+				continue;
+			}
+			if (!fused.isEmpty())
+			{
+				segments.add(new Segment(fused, segments.size()));
+				fused.clear();
+			}
+			segments.add(new Segment(Collections.singletonList(stage), segments.size()));
+		}
+		if (!fused.isEmpty())
+		{
+			segments.add(new Segment(fused, segments.size()));
+		}
+		plan = segments.toArray(new Segment[0]);
+	}
+
+	private boolean isCheap(Stage stage)
+	{
+		return stage instanceof SequentialStage && stage.count.sum() >= MIN_SAMPLES
+				&& stage.getMeanNanos() < fuseThresholdNanos;
+	}
+
+	/** 当前的执行段数 */
+	public int getSegmentCount()
+	{
+		return plan.length;
+	}
+
+	/**
+	 * 每个阶段的统计数据，按阶段顺序
+	 */
+	public List<StageStats> getStageStats()
+	{
+		Segment[] current = plan;
+		List<StageStats> result = new ArrayList<StageStats>();
+		for (Segment segment : current)
+		{
+			for (Stage stage : segment.stages)
+			{
+				result.add(new StageStats(stage.name, stage instanceof ParallelStage, stage.count.sum(),
+						stage.getMeanNanos(), segment.index));
+			}
+		}
+		return result;
+	}
+
+	/** 平均耗时最大的阶段，没有执行记录时返回 null */
+	public StageStats getSlowestStage()
+	{
+		StageStats slowest = null;
+		for (StageStats stats : getStageStats())
+		{
+			if (stats.getCount() > 0 && (slowest == null || stats.getMeanNanos() > slowest.getMeanNanos()))
+			{
+				slowest = stats;
+			}
+		}
+		return slowest;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%-16s%-12s%10s%14s%10s%n", "Stage", "Type", "Count", "Mean us", "Segment"));
+		for (StageStats stats : getStageStats())
+		{
+			sb.append(stats).append(System.lineSeparator());
+		}
+		StageStats slowest = getSlowestStage();
+		sb.append("slowest: ").append(slowest == null ? "-" : slowest.getName());
+		return sb.toString();
+	}
+
+	/**
+	 * 阶段，记录自己的耗时
+	 */
+	private abstract static class Stage
+	{
+		final String name;
+		final LongAdder count = new LongAdder();
+		final LongAdder totalNanos = new LongAdder();
+
+		Stage(String name)
+		{
+			this.name = name;
+		}
+
+		final void run()
+		{
+			long start = System.nanoTime();
+			try
+			{
+				invoke();
+			} finally
+			{
+				totalNanos.add(System.nanoTime() - start);
+				count.increment();
+			}
+		}
+
+		abstract void invoke();
+
+		double getMeanNanos()
+		{
+			long n = count.sum();
+			return n == 0 ? 0 : (double) totalNanos.sum() / n;
+		}
+	}
+
+	private static final class SequentialStage extends Stage
+	{
+		private final Strategy strategy;
+
+		SequentialStage(String name, Strategy strategy)
+		{
+			super(name);
+			this.strategy = strategy;
+		}
+
+		void invoke()
+		{
+			strategy.doSomething();
+		}
+	}
+
+	private final class ParallelStage extends Stage
+	{
+		private final Strategy[] branches;
+
+		ParallelStage(String name, Strategy[] branches)
+		{
+			super(name);
+			this.branches = branches;
+		}
+
+		void invoke()
+		{
+			if (branches.length == 1)
+			{
+				branches[0].doSomething();
+				return;
+			}
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(branches.length);
+			for (Strategy branch : branches)
+			{
+				tasks.add(ForkJoinTask.adapt(branch::doSomething));
+			}
+			if (ForkJoinTask.getPool() == pool)
+			{
+				ForkJoinTask.invokeAll(tasks); // 工作线程上 fork/join，空闲线程可以窃取
+				return;
+			}
+			for (int i = 1; i < tasks.size(); i++)
+			{
+				pool.execute(tasks.get(i));
+			}
+			RuntimeException failure = null;
+			for (int i = 0; i < tasks.size(); i++)
+			{
+				try
+				{
+					if (i == 0)
+					{
+						tasks.get(0).invoke(); // 第一个分支在调用线程上执行
+					}
+					else
+					{
+						tasks.get(i).join();
+					}
+				} catch (RuntimeException e)
+				{
+					if (failure == null)
+					{
+						failure = e;
+					}
+				}
+			}
+			if (failure != null)
+			{
+				throw failure instanceof CompletionException && failure.getCause() instanceof RuntimeException
+						? (RuntimeException) failure.getCause() : failure;
+			}
+		}
+	}
+
+	/**
+	 * 执行段：依次执行的一组阶段，异步执行时是一个任务
+	 */
+	private static final class Segment implements Runnable
+	{
+		final Stage[] stages;
+		final int index;
+
+		Segment(List<Stage> stages, int index)
+		{
+			this.stages = stages.toArray(new Stage[0]);
+			this.index = index;
+		}
+
+		public void run()
+		{
+			for (Stage stage : stages)
+			{
+				stage.run();
+			}
+		}
+	}
+}
+
+
+/**
+ * 阶段统计数据
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class StageStats
+{
+	private final String name;
+	private final boolean parallel;
+	private final long count;
+	private final double meanNanos;
+	private final int segment;
+
+	StageStats(String name, boolean parallel, long count, double meanNanos, int segment)
+	{
+		this.name = name;
+		this.parallel = parallel;
+		this.count = count;
+		this.meanNanos = meanNanos;
+		this.segment = segment;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public boolean isParallel()
+	{
+		return parallel;
+	}
+
+	public long getCount()
+	{
+		return count;
+	}
+
+	public double getMeanNanos()
+	{
+		return meanNanos;
+	}
+
+	/** 所在执行段的序号，同一执行段的阶段已融合 */
+	public int getSegment()
+	{
+		return segment;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%-16s%-12s%10d%14.1f%10d", name, parallel ? "parallel" : "sequential", count,
+				meanNanos / 1000, segment);
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class StrategyPipelineTest
+{
+	static Strategy sleep(final long millis)
+	{
+		return () -> {
+			try
+			{
+				Thread.sleep(millis);
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		};
+	}
+
+	public static void main(String[] args)
+	{
+		final List<String> trace = Collections.synchronizedList(new ArrayList<String>());
+		ForkJoinPool pool = new ForkJoinPool(4);
+		StrategyPipeline pipeline = new StrategyPipeline(pool, 20, TimeUnit.MICROSECONDS)
+				.then("parse", () -> trace.add("parse"))
+				.then("validate", () -> trace.add("validate"))
+				.fanOut("enrich", sleep(20), sleep(20), sleep(20))
+				.then("persist", sleep(5))
+				.then("audit", () -> trace.add("audit"));
+
+		pipeline.doSomething();
+		System.out.println(trace.equals(Arrays.asList("parse", "validate", "audit"))); // 返回 true
+		System.out.println(pipeline.getSegmentCount() == 5); // 返回 true，尚未测量，不融合
+
+		for (int i = 0; i < StrategyPipeline.REPLAN_PERIOD; i++)
+		{
+			pipeline.submit().join();
+		}
+		System.out.println(pipeline.getSegmentCount() == 4); // 返回 true，parse 与 validate 融合
+		System.out.println("enrich".equals(pipeline.getSlowestStage().getName())); // 返回 true
+		StageStats enrich = pipeline.getStageStats().get(2);
+		System.out.println(enrich.getMeanNanos() < TimeUnit.MILLISECONDS.toNanos(60)); // 返回 true，分支并行执行
+		System.out.println(pipeline);
+
+		// 阶段失败时中止后续阶段
+		trace.clear();
+		StrategyPipeline failing = new StrategyPipeline(pool, 20, TimeUnit.MICROSECONDS)
+				.fanOut("fail", () -> {
+					throw new IllegalStateException("分支失败");
+				}, () -> trace.add("branch"))
+				.then("after", () -> trace.add("after"));
+		try
+		{
+			failing.doSomething();
+			System.out.println(false);
+		} catch (IllegalStateException e)
+		{
+			System.out.println(!trace.contains("after")); // 返回 true
+		}
+		pool.shutdown();
+	}
+}
@@ -1,6 +1,6 @@
 package com.cqupt.mauger.behavior;
 
-import java.util.Arrays;
+import com.cqupt.mauger.output.OutputSink;
 
 /**
  * 模板方法模式 Template Method Pattern
@@ -51,8 +51,8 @@ public class TemplateMethod extends AbstractSort
 
     private void selectSort(int[] array, int index)
     {
-        int minValue = 32767; // 最小值变量
-        int minIndex = 0; // 最小值索引变量
+        int minValue = array[index]; // 最小值变量，以当前元素为初值
+        int minIndex = index; // 最小值索引变量
         int temp; // 暂存变量
         
         for (int i = index; i < array.length; i++)
@@ -92,7 +92,7 @@ abstract class AbstractSort
 	public void showSortResult(int[] array)
 	{
 		this.sort(array);
-		System.out.println(Arrays.toString(array));
+		OutputSink.get().printArray(array); // 逐段输出，不生成完整的字符串
 	}
 }
 
@@ -0,0 +1,194 @@
+package com.cqupt.mauger.behavior;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 向量内核
+ * 	VectorSort 的 SIMD 实现，单独放在一个类中：只有这个类引用 jdk.incubator.vector，
+ * 	未加载该模块时 VectorSort 不会加载它。
+ *
+ * 实现：
+ * 	1）固定使用 256 位（8 个 int）的向量形状。形状、重排与掩码都是 static final 常量，C2 才能把它们编译为向量指令；
+ * 	       首选形状不足 256 位时构造失败，VectorSort 改用 ScalarKernel。
+ * 	2）划分：比较得到掩码 bits，PACK[bits] 把小于轴的元素重排到向量前部后整体写回原数组的 lo 处，
+ * 	       PACK[~bits] 把其余元素重排到前部后写到辅助数组，两个写指针分别前进 bitCount(bits) 与 8 - bitCount(bits)。
+ * 	       写回原数组的位置不超过当前读到的位置，不会覆盖尚未读取的元素。
+ * 	3）小区间：一个向量内的双调排序网络，共 6 步，每步是一次重排、一次 min、一次 max 与一次混合；
+ * 	       两个向量时分别排序，第二个反转后与第一个取 min/max 得到两个双调序列，再各自做 3 步双调合并。
+ * 	       不足两个向量的部分以 Integer.MAX_VALUE 填充，排序后这些通道恢复为原来的值再整体写回，不使用带掩码的读写。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class VectorKernel implements SortKernel
+{
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_256;
+	private static final int LANES = 8;
+
+	/** PACK[m]：掩码 m 中为真的通道依次排在前面，其余通道排在后面 */
+	private static final VectorShuffle<Integer>[] PACK = packTable();
+	private static final VectorShuffle<Integer> REVERSE = VectorShuffle.fromValues(SPECIES, 7, 6, 5, 4, 3, 2, 1, 0);
+	private static final VectorShuffle<Integer> XOR1 = VectorShuffle.fromValues(SPECIES, 1, 0, 3, 2, 5, 4, 7, 6);
+	private static final VectorShuffle<Integer> XOR2 = VectorShuffle.fromValues(SPECIES, 2, 3, 0, 1, 6, 7, 4, 5);
+	private static final VectorShuffle<Integer> XOR4 = VectorShuffle.fromValues(SPECIES, 4, 5, 6, 7, 0, 1, 2, 3);
+	// 双调排序中块长为 k、比较距离为 j 的一步里取较大值的通道
+	private static final VectorMask<Integer> K2J1 = takeMax(2, 1);
+	private static final VectorMask<Integer> K4J2 = takeMax(4, 2);
+	private static final VectorMask<Integer> K4J1 = takeMax(4, 1);
+	private static final VectorMask<Integer> K8J4 = takeMax(8, 4);
+	private static final VectorMask<Integer> K8J2 = takeMax(8, 2);
+	private static final VectorMask<Integer> K8J1 = takeMax(8, 1);
+	private static final IntVector IOTA = IntVector.fromArray(SPECIES, new int[] { 0, 1, 2, 3, 4, 5, 6, 7 }, 0);
+	private static final IntVector LANE_BITS = IntVector.fromArray(SPECIES, new int[] { 1, 2, 4, 8, 16, 32, 64, 128 }, 0);
+	private static final IntVector ZERO = IntVector.zero(SPECIES);
+	private static final IntVector MAX = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+
+	/**
+	 * @throws UnsupportedOperationException 首选向量形状不足 256 位
+	 */
+	VectorKernel()
+	{
+		int bits = IntVector.SPECIES_PREFERRED.vectorBitSize();
+		if (bits < SPECIES.vectorBitSize())
+		{
+			throw new UnsupportedOperationException("向量长度不足：" + bits);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static VectorShuffle<Integer>[] packTable()
+	{
+		VectorShuffle<Integer>[] table = (VectorShuffle<Integer>[]) new VectorShuffle<?>[1 << LANES];
+		int[] index = new int[LANES];
+		for (int m = 0; m < table.length; m++)
+		{
+			int k = 0;
+			for (int i = 0; i < LANES; i++)
+			{
+				if ((m & (1 << i)) != 0)
+				{
+					index[k++] = i;
+				}
+			}
+			for (int i = 0; i < LANES; i++)
+			{
+				if ((m & (1 << i)) == 0)
+				{
+					index[k++] = i;
+				}
+			}
+			table[m] = VectorShuffle.fromArray(SPECIES, index, 0);
+		}
+		return table;
+	}
+
+	private static VectorMask<Integer> takeMax(int k, int j)
+	{
+		boolean[] max = new boolean[LANES];
+		for (int i = 0; i < LANES; i++)
+		{
+			max[i] = (i > (i ^ j)) == ((i & k) == 0);
+		}
+		return VectorMask.fromArray(SPECIES, max, 0);
+	}
+
+	public int partition(int[] a, int left, int right, int pivot, int[] buffer)
+	{
+		int lo = left;
+		int hi = 0;
+		int i = left;
+		for (int end = right + 1 - LANES; i <= end; i += LANES)
+		{
+			IntVector v = IntVector.fromArray(SPECIES, a, i);
+			// JDK 17 的 VectorMask.toLong 没有编译为单条指令，改为混合出每个通道的位再按位或归约
+			int bits = ZERO.blend(LANE_BITS, v.compare(VectorOperators.LT, pivot)).reduceLanes(VectorOperators.OR);
+			int count = Integer.bitCount(bits);
+			v.rearrange(PACK[bits]).intoArray(a, lo);
+			v.rearrange(PACK[~bits & 0xFF]).intoArray(buffer, hi);
+			lo += count;
+			hi += LANES - count;
+		}
+		for (; i <= right; i++)
+		{
+			int v = a[i];
+			if (v < pivot)
+			{
+				a[lo++] = v;
+			}
+			else
+			{
+				buffer[hi++] = v;
+			}
+		}
+		System.arraycopy(buffer, 0, a, lo, hi);
+		return lo;
+	}
+
+	public void sortSmall(int[] a, int left, int right)
+	{
+		int n = right - left + 1;
+		if (left + 2 * LANES > a.length)
+		{
+			DualPivotQuickSort.insertionSort(a, left, right); // 数组末尾读不满两个向量
+			return;
+		}
+		IntVector v1 = IntVector.fromArray(SPECIES, a, left);
+		IntVector v2 = IntVector.fromArray(SPECIES, a, left + LANES);
+		if (n <= LANES)
+		{
+			VectorMask<Integer> tail = IOTA.compare(VectorOperators.GE, n);
+			sort8(v1.blend(MAX, tail)).blend(v1, tail).intoArray(a, left);
+			return;
+		}
+		VectorMask<Integer> tail = IOTA.compare(VectorOperators.GE, n - LANES);
+		IntVector s1 = sort8(v1);
+		IntVector s2 = sort8(v2.blend(MAX, tail)).rearrange(REVERSE);
+		merge8(s1.min(s2)).intoArray(a, left);
+		merge8(s1.max(s2)).blend(v2, tail).intoArray(a, left + LANES);
+	}
+
+	private static IntVector sort8(IntVector v)
+	{
+		v = step(v, XOR1, K2J1);
+		v = step(v, XOR2, K4J2);
+		v = step(v, XOR1, K4J1);
+		return merge8(v);
+	}
+
+	/**
+	 * 双调序列变为升序
+	 */
+	private static IntVector merge8(IntVector v)
+	{
+		v = step(v, XOR4, K8J4);
+		v = step(v, XOR2, K8J2);
+		return step(v, XOR1, K8J1);
+	}
+
+	private static IntVector step(IntVector v, VectorShuffle<Integer> partner, VectorMask<Integer> takeMax)
+	{
+		IntVector p = v.rearrange(partner);
+		return v.min(p).blend(v.max(p), takeMax);
+	}
+
+	public int smallSize()
+	{
+		return 2 * LANES;
+	}
+
+	public int[] newBuffer(int n)
+	{
+		return new int[n + LANES];
+	}
+
+	@Override
+	public String toString()
+	{
+		return "vector(" + LANES + " x int)";
+	}
+}
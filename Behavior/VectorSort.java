@@ -0,0 +1,285 @@
+package com.cqupt.mauger.behavior;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 向量化排序
+ * 	AbstractSort 的实现类，快速排序的划分与小区间排序由 SortKernel 完成：
+ * 	JVM 加载了 jdk.incubator.vector 模块且有可用的向量形状时使用 VectorKernel（SIMD），否则使用 ScalarKernel。
+ *
+ * 实现：
+ * 	1）划分：按 (&lt; pivot, &gt;= pivot) 分为两段，VectorKernel 一次比较一个向量，用掩码查表得到的重排把小于轴的元素紧凑地写回原数组，
+ * 	       其余元素写到辅助数组，最后整体拷贝回来，划分过程没有分支。
+ * 	2）重复值：右段的所有元素都不小于父区间的轴，若新选的轴与它相等，说明轴的重复值很多，
+ * 	       改按 (&lt;= pivot, &gt; pivot) 划分并直接跳过等于轴的一段（pdqsort 的做法），大量重复值的输入同样是 O(n log n)。
+ * 	3）小区间：VectorKernel 在寄存器内用双调排序网络排序不超过两个向量长度的区间，ScalarKernel 使用插入排序。
+ * 	4）先递归较小的一段，较大的一段循环处理；递归深度超过 2*log2(n) 时改用堆排序，保证最坏情况为 O(n log n)。
+ *
+ * 注意事项：
+ * 	编译与运行都需要 --add-modules jdk.incubator.vector，运行时未加载该模块时自动使用 ScalarKernel；
+ * 	启动参数 -Dvector.sort=false 可强制使用 ScalarKernel。
+ * 	VectorKernel 每次排序需要 n 个 int 的辅助数组。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public class VectorSort extends AbstractSort
+{
+	private static final SortKernel DEFAULT_KERNEL = selectKernel();
+
+	private final SortKernel kernel;
+
+	public VectorSort()
+	{
+		this(DEFAULT_KERNEL);
+	}
+
+	VectorSort(SortKernel kernel)
+	{
+		this.kernel = kernel;
+	}
+
+	/**
+	 * 选择向量实现，不可用时使用标量实现
+	 */
+	private static SortKernel selectKernel()
+	{
+		if (Boolean.parseBoolean(System.getProperty("vector.sort", "true"))
+				&& ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+		{
+			try
+			{
+				return new VectorKernel();
+			} catch (UnsupportedOperationException | LinkageError e)
+			{
+				// 没有可用的向量形状
+			}
+		}
+		return new ScalarKernel();
+	}
+
+	/** 当前使用的 SortKernel 名称 */
+	public String getKernel()
+	{
+		return kernel.toString();
+	}
+
+	@Override
+	protected void sort(int[] array)
+	{
+		int n = array.length;
+		if (n < 2)
+		{
+			return;
+		}
+		int[] buffer = kernel.newBuffer(n);
+		sort(array, 0, n - 1, 2 * (32 - Integer.numberOfLeadingZeros(n)), false, 0, buffer);
+	}
+
+	/**
+	 * @param bounded 区间内的所有元素都不小于 lowerBound
+	 */
+	private void sort(int[] a, int left, int right, int depth, boolean bounded, int lowerBound, int[] buffer)
+	{
+		while (right - left + 1 > kernel.smallSize())
+		{
+			if (depth-- == 0)
+			{
+				DualPivotQuickSort.heapSort(a, left, right);
+				return;
+			}
+			int pivot = choosePivot(a, left, right);
+			if (bounded && pivot == lowerBound)
+			{
+				// 跳过等于轴的一段
+				if (pivot == Integer.MAX_VALUE)
+				{
+					return;
+				}
+				left = kernel.partition(a, left, right, pivot + 1, buffer);
+				continue;
+			}
+			int k = kernel.partition(a, left, right, pivot, buffer);
+			if (k - left < right - k)
+			{
+				sort(a, left, k - 1, depth, bounded, lowerBound, buffer);
+				left = k;
+				bounded = true;
+				lowerBound = pivot;
+			}
+			else
+			{
+				sort(a, k, right, depth, true, pivot, buffer);
+				right = k - 1;
+			}
+		}
+		if (right > left)
+		{
+			kernel.sortSmall(a, left, right);
+		}
+	}
+
+	/**
+	 * 三数中值，区间较大时取三组三数中值的中值
+	 */
+	private static int choosePivot(int[] a, int left, int right)
+	{
+		int mid = (left + right) >>> 1;
+		if (right - left < 1024)
+		{
+			return medianOf3(a[left], a[mid], a[right]);
+		}
+		int step = (right - left) >>> 3;
+		return medianOf3(medianOf3(a[left], a[left + step], a[left + 2 * step]),
+				medianOf3(a[mid - step], a[mid], a[mid + step]),
+				medianOf3(a[right - 2 * step], a[right - step], a[right]));
+	}
+
+	private static int medianOf3(int x, int y, int z)
+	{
+		if (x < y)
+		{
+			return y < z ? y : (x < z ? z : x);
+		}
+		return x < z ? x : (y < z ? z : y);
+	}
+}
+
+
+/**
+ * 排序内核：VectorSort 中随实现不同而变化的部分
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+interface SortKernel
+{
+	/**
+	 * 划分 a[left..right]（包含两端）
+	 * @return k，a[left, k) &lt; pivot，a[k, right] &gt;= pivot
+	 */
+	int partition(int[] a, int left, int right, int pivot, int[] buffer);
+
+	/** 对 a[left..right] 排序，right - left + 1 不超过 smallSize() */
+	void sortSmall(int[] a, int left, int right);
+
+	/** 交给 sortSmall 的最大区间长度 */
+	int smallSize();
+
+	/** 长度为 n 的数组排序时 partition 使用的辅助数组 */
+	int[] newBuffer(int n);
+}
+
+
+/**
+ * 标量内核：Hoare 划分与插入排序
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class ScalarKernel implements SortKernel
+{
+	public int partition(int[] a, int left, int right, int pivot, int[] buffer)
+	{
+		int i = left;
+		int j = right;
+		while (true)
+		{
+			while (i <= j && a[i] < pivot)
+			{
+				i++;
+			}
+			while (i <= j && a[j] >= pivot)
+			{
+				j--;
+			}
+			if (i >= j)
+			{
+				return i;
+			}
+			int t = a[i];
+			a[i++] = a[j];
+			a[j--] = t;
+		}
+	}
+
+	public void sortSmall(int[] a, int left, int right)
+	{
+		DualPivotQuickSort.insertionSort(a, left, right);
+	}
+
+	public int smallSize()
+	{
+		return 24;
+	}
+
+	public int[] newBuffer(int n)
+	{
+		return null;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "scalar";
+	}
+}
+
+
+/**
+ * 测试类
+ * 	运行：java --add-modules jdk.incubator.vector com.cqupt.mauger.behavior.VectorSortTest [n1 n2 ...]
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class VectorSortTest
+{
+	public static void main(String[] args)
+	{
+		int[] array = { 119, 3, 9, 120, 5, 7, 2, 110, 40000, -40000 };
+		VectorSort vectorSort = new VectorSort();
+		System.out.println(vectorSort.getKernel());
+		vectorSort.showSortResult(array);
+
+		VectorSort scalar = new VectorSort(new ScalarKernel());
+		System.out.println(SortBenchmark.verify(vectorSort, 1000000)); // 返回 true
+		System.out.println(SortBenchmark.verify(scalar, 1000000)); // 返回 true
+
+		// 全部相等、只有两种值、含 MIN_VALUE 与 MAX_VALUE 的输入
+		int[][] special = { new int[100000], new int[100000], new int[100000] };
+		for (int i = 0; i < 100000; i++)
+		{
+			special[1][i] = (i * 31) & 1;
+			special[2][i] = (i & 1) == 0 ? Integer.MAX_VALUE : Integer.MIN_VALUE + (i % 7);
+		}
+		boolean ok = true;
+		for (int[] data : special)
+		{
+			int[] expected = data.clone();
+			Arrays.sort(expected);
+			int[] actual = data.clone();
+			vectorSort.sort(actual);
+			ok &= Arrays.equals(expected, actual);
+		}
+		System.out.println(ok); // 返回 true
+
+		int[] sizes = { 1000, 100000, 10000000 };
+		if (args.length > 0)
+		{
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++)
+			{
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+		Map<String, AbstractSort> engines = new LinkedHashMap<String, AbstractSort>(SortBenchmark.engines());
+		engines.remove("RadixSort");
+		engines.remove("ParallelMergeSort");
+		engines.put("VectorSort(scalar)", scalar);
+		SortBenchmark.run(engines, sizes);
+	}
+}
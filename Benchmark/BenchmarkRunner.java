@@ -0,0 +1,327 @@
+package com.cqupt.mauger.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/**
+ * 基准测试运行器
+ *
+ * 说明：
+ * 	仓库没有构建脚本，无法引入 JMH，这里用纯 JDK 实现一个够用的多线程基准测试运行器，供各模式的 XxxBenchmark 类调用。
+ * 	1）先预热，再进入测量阶段，测量阶段统计吞吐量（ops/ms）。
+ * 	2）每个线程按批次计时，每批次的平均耗时作为一个样本，由样本计算 p50、p99 延迟（ns/op）。
+ * 	3）借助 com.sun.management.ThreadMXBean 统计测量阶段每次操作平均分配的字节数（B/op），JVM 不支持时输出 -1。
+ *
+ * 注意事项：
+ * 	1）被测操作的返回值必须被使用，否则 JIT 可能将其整个消除，运行器会统计返回 null 的次数来"消费"结果，
+ * 	       并在每次操作前读取一个 volatile 字段，防止操作被提到循环之外。
+ * 	2）按批次计时是为了摊薄 System.nanoTime() 本身的开销，因此 p99 是批次平均值的 p99，而不是单次调用的 p99。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public final class BenchmarkRunner
+{
+	/** 默认测量的线程数 */
+	public static final int[] THREAD_COUNTS = { 1, 4, 16, 64 };
+
+	private static final int MAX_SAMPLES_PER_THREAD = 1 << 14;
+
+	private final long warmupMillis;
+	private final long measureMillis;
+	private final int batchSize;
+
+	private volatile int phase; // 0：预热；1：测量；2：结束
+
+	/** 始终为 null，每次操作前读取一次，其 volatile 语义阻止 JIT 把被测操作提到循环之外 */
+	private volatile Object guard;
+
+	public BenchmarkRunner(long warmupMillis, long measureMillis, int batchSize)
+	{
+		this.warmupMillis = warmupMillis;
+		this.measureMillis = measureMillis;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * 使用默认参数：预热 500ms，测量 1000ms，每批次 1024 次操作
+	 */
+	public BenchmarkRunner()
+	{
+		this(500, 1000, 1024);
+	}
+
+	/**
+	 * 以指定线程数并发执行 op，返回测量结果
+	 * @param name 基准名称
+	 * @param threads 线程数
+	 * @param op 被测操作
+	 * @return 测量结果
+	 */
+	public Result run(String name, int threads, final Supplier<?> op)
+	{
+		phase = 0;
+		final CountDownLatch ready = new CountDownLatch(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		final Worker[] workers = new Worker[threads];
+		for (int i = 0; i < threads; i++)
+		{
+			workers[i] = new Worker(op, ready, start);
+			workers[i].setName(name + "-" + i);
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+		awaitQuietly(ready);
+		start.countDown();
+		sleepQuietly(warmupMillis);
+		phase = 1;
+		long begin = System.nanoTime();
+		sleepQuietly(measureMillis);
+		phase = 2;
+		long elapsed = System.nanoTime() - begin;
+
+		long ops = 0;
+		long bytes = 0;
+		int sampleCount = 0;
+		for (Worker w : workers)
+		{
+			joinQuietly(w);
+			ops += w.ops;
+			bytes = (bytes < 0 || w.allocated < 0) ? -1 : bytes + w.allocated;
+			sampleCount += w.sampleCount;
+		}
+		long[] samples = new long[sampleCount];
+		int pos = 0;
+		for (Worker w : workers)
+		{
+			System.arraycopy(w.samples, 0, samples, pos, w.sampleCount);
+			pos += w.sampleCount;
+		}
+		Arrays.sort(samples);
+		return new Result(name, threads, ops, elapsed, percentile(samples, 0.50), percentile(samples, 0.99),
+				bytes < 0 || ops == 0 ? -1 : (double) bytes / ops);
+	}
+
+	/**
+	 * 对每个默认线程数各执行一次，并打印结果
+	 * @param name 基准名称
+	 * @param op 被测操作
+	 */
+	public void runAll(String name, Supplier<?> op)
+	{
+		for (int threads : THREAD_COUNTS)
+		{
+			System.out.println(run(name, threads, op));
+		}
+	}
+
+	/**
+	 * 计算已排序数组的百分位数
+	 * @param sorted 已排序数组
+	 * @param p 百分位，取值 0~1
+	 * @return 百分位数，数组为空时返回 0
+	 */
+	public static long percentile(long[] sorted, double p)
+	{
+		if (sorted.length == 0)
+		{
+			return 0;
+		}
+		int index = (int) Math.ceil(p * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+	}
+
+	/**
+	 * 当前线程已分配的字节数，JVM 不支持时返回 -1
+	 */
+	public static long allocatedBytes()
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+		{
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	/**
+	 * 打印结果表头
+	 */
+	public static void printHeader()
+	{
+		System.out.println(String.format("%-36s %7s %14s %10s %10s %10s",
+				"Benchmark", "Threads", "ops/ms", "p50 ns/op", "p99 ns/op", "B/op"));
+	}
+
+	public static void awaitQuietly(CountDownLatch latch)
+	{
+		try
+		{
+			latch.await();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public static void sleepQuietly(long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public static void joinQuietly(Thread t)
+	{
+		try
+		{
+			t.join();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * 工作线程
+	 */
+	private final class Worker extends Thread
+	{
+		private final Supplier<?> op;
+		private final CountDownLatch ready;
+		private final CountDownLatch start;
+		private final long[] samples = new long[MAX_SAMPLES_PER_THREAD];
+		private int sampleCount;
+		private long ops;
+		private long allocated = -1;
+		private long nulls;
+
+		Worker(Supplier<?> op, CountDownLatch ready, CountDownLatch start)
+		{
+			this.op = op;
+			this.ready = ready;
+			this.start = start;
+		}
+
+		@Override
+		public void run()
+		{
+			ready.countDown();
+			awaitQuietly(start);
+			long bytesBegin = -1;
+			int p;
+			while ((p = phase) != 2)
+			{
+				long t0 = System.nanoTime();
+				for (int i = 0; i < batchSize; i++)
+				{
+					if (guard == op.get())
+					{
+						nulls++;
+					}
+				}
+				long t1 = System.nanoTime();
+				if (p == 1)
+				{
+					if (bytesBegin < 0 && ops == 0)
+					{
+						bytesBegin = allocatedBytes();
+					}
+					ops += batchSize;
+					// 样本数组写满后循环覆盖，保留最近的样本
+					samples[(int) ((ops / batchSize - 1) % MAX_SAMPLES_PER_THREAD)] = (t1 - t0) / batchSize;
+					sampleCount = (int) Math.min(ops / batchSize, MAX_SAMPLES_PER_THREAD);
+				}
+			}
+			if (bytesBegin >= 0)
+			{
+				long bytesEnd = allocatedBytes();
+				allocated = bytesEnd < 0 ? -1 : bytesEnd - bytesBegin;
+			}
+			else if (ops == 0)
+			{
+				allocated = 0;
+			}
+			if (nulls < 0)
+			{
+				System.out.println(nulls); // 不会执行，仅用于阻止结果被消除
+			}
+		}
+	}
+
+	/**
+	 * 测量结果
+	 */
+	public static final class Result
+	{
+		private final String name;
+		private final int threads;
+		private final long ops;
+		private final long elapsedNanos;
+		private final long p50;
+		private final long p99;
+		private final double bytesPerOp;
+
+		public Result(String name, int threads, long ops, long elapsedNanos, long p50, long p99, double bytesPerOp)
+		{
+			this.name = name;
+			this.threads = threads;
+			this.ops = ops;
+			this.elapsedNanos = elapsedNanos;
+			this.p50 = p50;
+			this.p99 = p99;
+			this.bytesPerOp = bytesPerOp;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public int getThreads()
+		{
+			return threads;
+		}
+
+		public long getOps()
+		{
+			return ops;
+		}
+
+		/** 吞吐量，单位 ops/ms */
+		public double getThroughput()
+		{
+			return elapsedNanos == 0 ? 0 : ops * 1_000_000.0 / elapsedNanos;
+		}
+
+		public long getP50()
+		{
+			return p50;
+		}
+
+		public long getP99()
+		{
+			return p99;
+		}
+
+		public double getBytesPerOp()
+		{
+			return bytesPerOp;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("%-36s %7d %14.1f %10d %10d %10.2f",
+					name, threads, getThroughput(), p50, p99, bytesPerOp);
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package com.cqupt.mauger.create;
 
+import com.cqupt.mauger.output.OutputSink;
+
 /**
  * 抽象工厂模式 Abstract Factory Pattern
  * 
@@ -62,7 +64,7 @@ class Product1 implements IProductA
 {
     public void show()
     {
-        System.out.println("这是A型产品");
+        OutputSink.get().println("这是A型产品");
     }
 }
 
@@ -77,7 +79,7 @@ class Product2 implements IProductB
 {
     public void show()
     {
-        System.out.println("这是B型产品");
+        OutputSink.get().println("这是B型产品");
     }
 }
 
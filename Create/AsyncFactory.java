@@ -0,0 +1,577 @@
+package com.cqupt.mauger.create;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步工厂
+ * 	按键注册 FactoryMethod，createProductAsync 立即返回 CompletableFuture，耗时的 createProduct() 在后台线程执行，调用方不再阻塞。
+ *
+ * 实现：
+ * 	1）执行线程：运行时支持虚拟线程（Executors.newVirtualThreadPerTaskExecutor）时使用虚拟线程，否则退化为守护线程的缓存线程池。
+ * 	       该方法通过 MethodHandle 查找，在不支持虚拟线程的 JDK 上同样可以编译和运行。
+ * 	2）合并请求：同一个键同时只有一次创建在执行，并发请求共享这次创建的结果。
+ * 	3）预取：每个周期统计各键的请求数，按指数加权平均估计下个周期的需求，提前创建产品放入就绪队列（最多 maxPrefetch 个），
+ * 	       就绪队列中有产品时请求立即完成。
+ * 	4）超时与取消：每个调用方拿到独立的 future，可以单独超时或取消；某次创建的所有调用方都放弃后，创建任务被中断。
+ * 	5）关闭后：执行线程拒绝创建任务时，这次创建不会成为进行中的创建，调用方的 future 以 RejectedExecutionException 异常完成。
+ *
+ * 注意事项：
+ * 	合并请求时，并发的调用方拿到的是同一个产品实例；预取的产品每个只交给一个调用方。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class AsyncFactory<K> implements AutoCloseable
+{
+	private static final MethodHandle VIRTUAL_EXECUTOR = findVirtualExecutor();
+
+	private final ConcurrentMap<K, Entry> entries = new ConcurrentHashMap<K, Entry>();
+	private final ExecutorService executor;
+	private final boolean virtual;
+	private final ScheduledExecutorService scheduler;
+	private final int maxPrefetch;
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder prefetchHits = new LongAdder();
+	private final LongAdder created = new LongAdder();
+	private final LongAdder prefetched = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder cancellations = new LongAdder();
+
+	/**
+	 * 每 100 毫秒统计一次需求，每个键最多预取 4 个产品
+	 */
+	public AsyncFactory()
+	{
+		this(100, TimeUnit.MILLISECONDS, 4);
+	}
+
+	/**
+	 * @param period 需求统计周期
+	 * @param unit 周期单位
+	 * @param maxPrefetch 每个键最多预取的产品数，0 表示不预取
+	 */
+	public AsyncFactory(long period, TimeUnit unit, int maxPrefetch)
+	{
+		if (period <= 0 || maxPrefetch < 0)
+		{
+			throw new IllegalArgumentException("异步工厂配置错误");
+		}
+		this.maxPrefetch = maxPrefetch;
+		ExecutorService virtualExecutor = newVirtualExecutor();
+		this.virtual = virtualExecutor != null;
+		this.executor = virtual ? virtualExecutor : Executors.newCachedThreadPool(r -> {
+			Thread t = new Thread(r, "async-factory-worker");
+			t.setDaemon(true);
+			return t;
+		});
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "async-factory-prefetch");
+			t.setDaemon(true);
+			return t;
+		});
+		if (maxPrefetch > 0)
+		{
+			scheduler.scheduleWithFixedDelay(this::prefetch, period, period, unit);
+		}
+	}
+
+	private static MethodHandle findVirtualExecutor()
+	{
+		try
+		{
+			return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+					MethodType.methodType(ExecutorService.class));
+		} catch (NoSuchMethodException | IllegalAccessException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * 创建虚拟线程执行器，不支持时返回 null
+	 */
+	private static ExecutorService newVirtualExecutor()
+	{
+		if (VIRTUAL_EXECUTOR != null)
+		{
+			try
+			{
+				return (ExecutorService) VIRTUAL_EXECUTOR.invokeExact();
+			} catch (UnsupportedOperationException e)
+			{
+				// 虚拟线程是预览特性且未开启，退化为平台线程
+			} catch (Throwable e)
+			{
+				throw new IllegalStateException(e);
+			}
+		}
+		return null;
+	}
+
+	/** 是否在虚拟线程上创建产品 */
+	public boolean isVirtual()
+	{
+		return virtual;
+	}
+
+	/**
+	 * 注册工厂
+	 */
+	public void register(K key, FactoryMethod factory)
+	{
+		if (entries.putIfAbsent(key, new Entry(key, factory)) != null)
+		{
+			throw new IllegalArgumentException("键已注册：" + key);
+		}
+	}
+
+	/**
+	 * 异步创建产品
+	 * @param key 键
+	 * @return 产品的 future，取消它不会影响其他等待同一次创建的调用方
+	 */
+	public CompletableFuture<IProduct> createProductAsync(K key)
+	{
+		Entry entry = entry(key);
+		requests.increment();
+		entry.demand.increment();
+		IProduct product = entry.ready.poll();
+		if (product != null)
+		{
+			entry.readySize.decrementAndGet();
+			prefetchHits.increment();
+			return CompletableFuture.completedFuture(product);
+		}
+		Creation creation;
+		while (true)
+		{
+			creation = entry.inFlight;
+			if (creation == null)
+			{
+				creation = entry.start();
+			}
+			else
+			{
+				coalesced.increment();
+			}
+			if (creation.join())
+			{
+				break;
+			}
+		}
+		return creation.newWaiter();
+	}
+
+	/**
+	 * 异步创建产品，超时后 future 以 TimeoutException 异常完成
+	 */
+	public CompletableFuture<IProduct> createProductAsync(K key, long timeout, TimeUnit unit)
+	{
+		return createProductAsync(key).orTimeout(timeout, unit);
+	}
+
+	/**
+	 * 同步创建产品，等待超过 timeout 时抛出 TimeoutException
+	 */
+	public IProduct createProduct(K key, long timeout, TimeUnit unit) throws TimeoutException, InterruptedException
+	{
+		CompletableFuture<IProduct> future = createProductAsync(key);
+		try
+		{
+			return future.get(timeout, unit);
+		} catch (TimeoutException | InterruptedException e)
+		{
+			future.cancel(true);
+			throw e;
+		} catch (ExecutionException e)
+		{
+			throw new IllegalStateException("创建产品失败：" + key, e.getCause());
+		}
+	}
+
+	private Entry entry(K key)
+	{
+		Entry entry = entries.get(key);
+		if (entry == null)
+		{
+			throw new IllegalArgumentException("键未注册：" + key);
+		}
+		return entry;
+	}
+
+	/**
+	 * 统计上个周期的需求并补充各键的就绪队列
+	 */
+	void prefetch()
+	{
+		for (Entry entry : entries.values())
+		{
+			long demand = entry.demand.sumThenReset();
+			entry.rate = entry.rate * 0.5 + demand * 0.5;
+			int target = (int) Math.min(maxPrefetch, Math.ceil(entry.rate));
+			if (entry.rate < 0.5)
+			{
+				target = 0; // 需求消失后不再预取
+			}
+			while (entry.readySize.get() + entry.prefetching.get() < target)
+			{
+				entry.prefetching.incrementAndGet();
+				try
+				{
+					executor.execute(entry::prefetchOne);
+				} catch (RuntimeException e)
+				{
+					entry.prefetching.decrementAndGet(); // 已关闭
+					return;
+				}
+			}
+		}
+	}
+
+	public long getRequests()
+	{
+		return requests.sum();
+	}
+
+	/** 合并到已有创建的请求数 */
+	public long getCoalesced()
+	{
+		return coalesced.sum();
+	}
+
+	/** 由预取产品直接满足的请求数 */
+	public long getPrefetchHits()
+	{
+		return prefetchHits.sum();
+	}
+
+	/** 为请求执行的创建次数（不含预取） */
+	public long getCreated()
+	{
+		return created.sum();
+	}
+
+	public long getPrefetched()
+	{
+		return prefetched.sum();
+	}
+
+	public long getTimeouts()
+	{
+		return timeouts.sum();
+	}
+
+	public long getCancellations()
+	{
+		return cancellations.sum();
+	}
+
+	@Override
+	public void close()
+	{
+		scheduler.shutdownNow();
+		executor.shutdownNow();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "AsyncFactory[virtual=" + isVirtual() + ", requests=" + getRequests() + ", coalesced="
+				+ getCoalesced() + ", prefetchHits=" + getPrefetchHits() + ", created=" + getCreated() + ", prefetched="
+				+ getPrefetched() + ", timeouts=" + getTimeouts() + ", cancellations=" + getCancellations() + "]";
+	}
+
+	/**
+	 * 一个键的工厂、进行中的创建与就绪队列
+	 */
+	private final class Entry
+	{
+		final K key;
+		final FactoryMethod factory;
+		volatile Creation inFlight;
+		final Queue<IProduct> ready = new ConcurrentLinkedQueue<IProduct>();
+		final AtomicInteger readySize = new AtomicInteger();
+		final AtomicInteger prefetching = new AtomicInteger();
+		final LongAdder demand = new LongAdder();
+		double rate; // 只由预取线程读写
+
+		Entry(K key, FactoryMethod factory)
+		{
+			this.key = key;
+			this.factory = factory;
+		}
+
+		/**
+		 * 开始一次创建，已有进行中的创建时返回它
+		 * 	提交成功后才设为进行中的创建；任务在此之前完成时，finish 等待本方法退出后再清除它。
+		 */
+		synchronized Creation start()
+		{
+			Creation creation = inFlight;
+			if (creation == null || creation.waiters.get() < 0)
+			{
+				creation = new Creation(this);
+				try
+				{
+					creation.task = executor.submit(creation::run);
+				} catch (RejectedExecutionException e)
+				{
+					creation.result.completeExceptionally(e); // 已关闭，不会有线程完成这次创建
+					return creation;
+				}
+				inFlight = creation;
+				created.increment();
+			}
+			return creation;
+		}
+
+		synchronized void finish(Creation creation)
+		{
+			if (inFlight == creation)
+			{
+				inFlight = null;
+			}
+		}
+
+		void prefetchOne()
+		{
+			try
+			{
+				IProduct product = factory.createProduct();
+				readySize.incrementAndGet();
+				ready.offer(product);
+				prefetched.increment();
+			} catch (RuntimeException e)
+			{
+				// 预取失败不影响请求，下一个周期重试
+			} finally
+			{
+				prefetching.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * 一次进行中的创建
+	 */
+	private final class Creation
+	{
+		final Entry entry;
+		final CompletableFuture<IProduct> result = new CompletableFuture<IProduct>();
+		final AtomicInteger waiters = new AtomicInteger(); // -1 表示已放弃
+		volatile Future<?> task;
+
+		Creation(Entry entry)
+		{
+			this.entry = entry;
+		}
+
+		void run()
+		{
+			try
+			{
+				result.complete(entry.factory.createProduct());
+			} catch (Throwable e)
+			{
+				result.completeExceptionally(e);
+			} finally
+			{
+				entry.finish(this);
+			}
+		}
+
+		/**
+		 * 加入这次创建，创建已被放弃时返回 false
+		 */
+		boolean join()
+		{
+			while (true)
+			{
+				int n = waiters.get();
+				if (n < 0)
+				{
+					return false;
+				}
+				if (waiters.compareAndSet(n, n + 1))
+				{
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * 离开这次创建，最后一个调用方离开且创建尚未完成时中断创建任务
+		 */
+		void leave()
+		{
+			if (waiters.decrementAndGet() == 0 && !result.isDone() && waiters.compareAndSet(0, -1))
+			{
+				entry.finish(this);
+				result.cancel(false);
+				Future<?> t = task;
+				if (t != null)
+				{
+					t.cancel(true);
+				}
+			}
+		}
+
+		CompletableFuture<IProduct> newWaiter()
+		{
+			final CompletableFuture<IProduct> waiter = new CompletableFuture<IProduct>();
+			result.whenComplete((product, e) -> {
+				if (e == null)
+				{
+					waiter.complete(product);
+				}
+				else
+				{
+					waiter.completeExceptionally(e);
+				}
+			});
+			waiter.whenComplete((product, e) -> {
+				if (result.isDone())
+				{
+					return;
+				}
+				if (waiter.isCancelled())
+				{
+					cancellations.increment();
+				}
+				else if (e instanceof TimeoutException)
+				{
+					timeouts.increment();
+				}
+				leave();
+			});
+			return waiter;
+		}
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class AsyncFactoryTest
+{
+	/**
+	 * 初始化很慢的工厂
+	 */
+	static class SlowFactory implements FactoryMethod
+	{
+		final long millis;
+		final AtomicInteger interrupted = new AtomicInteger();
+
+		SlowFactory(long millis)
+		{
+			this.millis = millis;
+		}
+
+		public IProduct createProduct()
+		{
+			try
+			{
+				Thread.sleep(millis);
+			} catch (InterruptedException e)
+			{
+				interrupted.incrementAndGet();
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("创建被取消");
+			}
+			return new Product();
+		}
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		SlowFactory car = new SlowFactory(50);
+		SlowFactory slow = new SlowFactory(2000);
+		try (AsyncFactory<String> factory = new AsyncFactory<String>(50, TimeUnit.MILLISECONDS, 4))
+		{
+			factory.register("car", car);
+			factory.register("slow", slow);
+
+			// 合并：10 个并发请求只创建一次
+			List<CompletableFuture<IProduct>> futures = new ArrayList<CompletableFuture<IProduct>>();
+			for (int i = 0; i < 10; i++)
+			{
+				futures.add(factory.createProductAsync("car"));
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+			futures.get(0).get().productMethod();
+			System.out.println(factory.getCreated() == 1 && futures.get(0).get() == futures.get(9).get()); // 返回 true
+
+			// 超时
+			try
+			{
+				factory.createProductAsync("slow", 50, TimeUnit.MILLISECONDS).get();
+				System.out.println(false);
+			} catch (ExecutionException e)
+			{
+				System.out.println(e.getCause() instanceof TimeoutException); // 返回 true
+			}
+
+			// 取消：唯一的调用方取消后，创建任务被中断
+			CompletableFuture<IProduct> cancelled = factory.createProductAsync("slow");
+			Thread.sleep(20);
+			cancelled.cancel(true);
+			Thread.sleep(100);
+			System.out.println(slow.interrupted.get() == 2); // 返回 true，超时与取消各中断一次
+
+			// 预取：持续有需求后，请求由就绪队列直接满足
+			for (int i = 0; i < 20; i++)
+			{
+				factory.createProductAsync("car").get();
+				Thread.sleep(10);
+			}
+			Thread.sleep(150);
+			long hits = factory.getPrefetchHits();
+			factory.createProductAsync("car").get();
+			System.out.println(factory.getPrefetchHits() == hits + 1); // 返回 true
+			System.out.println(factory);
+		}
+
+		// 关闭后：创建被拒绝，请求以异常完成而不是一直等待
+		AsyncFactory<String> closed = new AsyncFactory<String>(50, TimeUnit.MILLISECONDS, 0);
+		closed.register("car", car);
+		closed.close();
+		int rejected = 0;
+		for (int i = 0; i < 2; i++)
+		{
+			try
+			{
+				closed.createProductAsync("car").get(1, TimeUnit.SECONDS);
+			} catch (ExecutionException e)
+			{
+				rejected += e.getCause() instanceof RejectedExecutionException ? 1 : 0;
+			}
+		}
+		System.out.println(rejected == 2); // 返回 true
+	}
+}
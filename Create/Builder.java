@@ -1,5 +1,7 @@
 package com.cqupt.mauger.create;
 
+import com.cqupt.mauger.output.OutputSink;
+
 /**
  * 建造者模式 Builder Pattern
  * 
@@ -34,29 +36,38 @@ package com.cqupt.mauger.create;
  * @version 1.0
  * 
  * 抽象建造者类
+ * 	建造者可以重复使用：getProduct() 每次返回一个新的不可变产品，reset() 清空已设置的部件。
  */
 public abstract class Builder
 {
 	public abstract void setPart(String name, String type);
     public abstract ProductB getProduct();
+    public abstract void reset();
 }
 
 
 /**
  * 产品类
+ * 	不可变，创建后不能修改，可以在线程之间安全共享，无需防御性拷贝。
  * @author Mauger
  * @date 2018年4月20日  
  * @version 1.0
  */
-class ProductB
+final class ProductB
 {
-	private String name;
-	private String type;
+	private final String name;
+	private final String type;
+	
+	ProductB(String name, String type)
+	{
+		this.name = name;
+		this.type = type;
+	}
 	
 	public void showProduct()
 	{
-		System.out.println("名称：" + name);
-		System.out.println("型号：" + type);
+		OutputSink.get().println("名称：", name);
+		OutputSink.get().println("型号：", type);
 	}
 	
 	public String getName()
@@ -64,19 +75,48 @@ class ProductB
 		return name;
 	}
 	
-	public void setName(String name)
+	public String getType()
 	{
-		this.name = name;
+		return type;
 	}
+}
+
+
+/**
+ * 部件符号表
+ * 	对部件值去重，相同的名称、型号只保留一个 String 实例，大量产品共享同一份存储。
+ * 	符号表是一个容量为 part.symbols.max（默认 4096）的 FlyweightFactory，按访问频率决定保留哪些值；
+ * 	超出容量的低频值不进入符号表，直接返回调用方传入的实例，取值很多的输入不会让符号表无限增长。
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class PartSymbols
+{
+	static final int MAX_SYMBOLS = Integer.getInteger("part.symbols.max", 4096);
 	
-	public String getType()
+	private static final FlyweightFactory<String, String> SYMBOLS = new FlyweightFactory<String, String>(v -> v,
+			MAX_SYMBOLS, FlyweightFactory.Retention.STRONG);
+	
+	private PartSymbols() {}
+	
+	/**
+	 * 返回与 value 相等的唯一实例
+	 * @param value 部件值，可以为 null
+	 * @return 去重后的部件值
+	 */
+	public static String intern(String value)
 	{
-		return type;
+		if (value == null)
+		{
+			return null;
+		}
+		return SYMBOLS.get(value);
 	}
 	
-	public void setType(String type)
+	public static int size()
 	{
-		this.type = type;
+		return SYMBOLS.size();
 	}
 }
 
@@ -84,25 +124,34 @@ class ProductB
 /**
  * 建造者类
  * 	实现抽象类的所有未实现的方法，任务：组建产品、返回组建好的产品。
+ * 	部件值经符号表去重后保存，getProduct() 每次创建新的不可变产品，建造者本身可以重置后重复使用。
  * @author Mauger
  * @date 2018年4月20日  
  * @version 1.0
  */
 class ConcreateBuilder extends Builder
 {
-	private ProductB product = new ProductB();
+	private String name;
+	private String type;
 	
 	@Override
 	public void setPart(String name, String type)
 	{
-		product.setName(name);
-		product.setType(type);
+		this.name = PartSymbols.intern(name);
+		this.type = PartSymbols.intern(type);
 	}
 
 	@Override
 	public ProductB getProduct()
 	{
-		return product;
+		return new ProductB(name, type);
+	}
+	
+	@Override
+	public void reset()
+	{
+		name = null;
+		type = null;
 	}
 }
 
@@ -110,24 +159,63 @@ class ConcreateBuilder extends Builder
 /**
  * 导演类
  * 	负责调用适当的建造者来组建产品。
+ * 	默认使用线程本地缓存的建造者，同一个导演可以被多个线程共享。
  * @author Mauger
  * @date 2018年4月20日  
  * @version 1.0
  */
 class Director
 {
-	private Builder builder = new ConcreateBuilder();
+	private static final ThreadLocal<Builder> LOCAL_BUILDER = ThreadLocal
+			.withInitial(() -> CreationMetrics.instrument(new ConcreateBuilder()));
+	
+	private final Builder builder;
+	
+	public Director()
+	{
+		this(null);
+	}
+	
+	/**
+	 * @param builder 指定的建造者，为 null 时使用线程本地缓存的建造者
+	 */
+	public Director(Builder builder)
+	{
+		this.builder = builder;
+	}
+	
+	private Builder builder()
+	{
+		Builder b = builder != null ? builder : LOCAL_BUILDER.get();
+		b.reset();
+		return b;
+	}
 	
 	public ProductB getAProductB()
 	{
-		builder.setPart("BMW", "x6");
-		return builder.getProduct();
+		Builder b = builder();
+		b.setPart("BMW", "x6");
+		return b.getProduct();
 	}
 	
 	public ProductB getBProductB()
 	{
-		builder.setPart("Audi", "a6");
-		return builder.getProduct();
+		Builder b = builder();
+		b.setPart("Audi", "a6");
+		return b.getProduct();
+	}
+	
+	/**
+	 * 批量建造 aCount 个 A 型产品和 bCount 个 B 型产品，写入列式产品批，不创建 ProductB 对象
+	 */
+	public ProductBBatch getProductBBatch(int aCount, int bCount)
+	{
+		BatchBuilder b = new BatchBuilder(new ProductBBatch(aCount + bCount));
+		b.setPart("BMW", "x6");
+		b.append(aCount);
+		b.setPart("Audi", "a6");
+		b.append(bCount);
+		return b.getBatch();
 	}
 }
 
@@ -148,5 +236,18 @@ class BuilderTest
 
         ProductB product2 = director.getBProductB();
         product2.showProduct();
+
+        product1.showProduct(); // 第二次建造不会覆盖第一个产品
+        System.out.println(product1 != product2); // 返回 true
+        System.out.println(director.getAProductB().getName() == product1.getName()); // 返回 true，部件值共享存储
+
+        // 大量不同的部件值：符号表不超过容量
+        for (int i = 0; i < 3 * PartSymbols.MAX_SYMBOLS; i++)
+        {
+            PartSymbols.intern("型号-" + i);
+            PartSymbols.intern("BMW");
+        }
+        System.out.println(PartSymbols.size() <= PartSymbols.MAX_SYMBOLS); // 返回 true
+        System.out.println(PartSymbols.intern(new String("BMW")) == product1.getName()); // 返回 true，常用值仍然共享
     }
 }
\ No newline at end of file
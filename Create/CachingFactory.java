@@ -0,0 +1,369 @@
+package com.cqupt.mauger.create;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.cqupt.mauger.benchmark.BenchmarkRunner;
+import com.cqupt.mauger.output.OutputSink;
+
+/**
+ * 缓存产品的抽象工厂（装饰者）
+ * 	包装一个 AbstractFactory，对无状态产品返回共享实例；对实现了 Resettable 的有状态产品，复用调用方归还的实例。
+ *
+ * 实现：
+ * 	1）无状态判定：产品类标注了 @Stateless，或者类及其父类都没有实例字段。判定结果按类缓存，只计算一次。
+ * 	2）无状态产品：第一次由被包装的工厂创建，之后一直返回这个实例。
+ * 	3）有状态产品：每个产品族（createProduct1、createProduct2 各为一族）有一个容量为 capacity 的回收缓存，
+ * 	       调用方通过 release 归还实例，归还时先调用 reset() 清除上一个调用方留下的状态，缓存满时淘汰最早归还的实例。
+ * 	4）没有实现 Resettable 的有状态产品无法清除状态，归还时直接丢弃，每次都由被包装的工厂新建。
+ *
+ * 指标：
+ * 	被包装工厂的创建次数、共享实例命中次数（可关闭）、回收实例命中次数、淘汰次数。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class CachingFactory implements AbstractFactory
+{
+	private static final ClassValue<Boolean> STATELESS = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			if (type.isAnnotationPresent(Stateless.class))
+			{
+				return Boolean.TRUE;
+			}
+			for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass())
+			{
+				for (Field f : c.getDeclaredFields())
+				{
+					if (!Modifier.isStatic(f.getModifiers()))
+					{
+						return Boolean.FALSE;
+					}
+				}
+			}
+			return Boolean.TRUE;
+		}
+	};
+
+	private final AbstractFactory delegate;
+	private final boolean recordStats;
+	private final Family<IProductA> family1;
+	private final Family<IProductB> family2;
+
+	private final LongAdder created = new LongAdder();
+	private final LongAdder sharedHits = new LongAdder();
+	private final LongAdder recycledHits = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public CachingFactory(AbstractFactory delegate)
+	{
+		this(delegate, 32);
+	}
+
+	/**
+	 * @param delegate 被包装的工厂
+	 * @param capacity 每个产品族回收缓存的容量
+	 */
+	public CachingFactory(AbstractFactory delegate, int capacity)
+	{
+		this(delegate, capacity, true);
+	}
+
+	/**
+	 * @param delegate 被包装的工厂
+	 * @param capacity 每个产品族回收缓存的容量
+	 * @param recordStats 是否统计共享实例命中次数；命中路径上的计数开销与一次小对象分配相当，热点路径可以关闭
+	 */
+	public CachingFactory(AbstractFactory delegate, int capacity, boolean recordStats)
+	{
+		this.delegate = delegate;
+		this.recordStats = recordStats;
+		this.family1 = new Family<IProductA>(capacity);
+		this.family2 = new Family<IProductB>(capacity);
+	}
+
+	public IProductA createProduct1()
+	{
+		IProductA product = family1.take();
+		if (product == null)
+		{
+			product = family1.share(delegate.createProduct1());
+		}
+		return product;
+	}
+
+	public IProductB createProduct2()
+	{
+		IProductB product = family2.take();
+		if (product == null)
+		{
+			product = family2.share(delegate.createProduct2());
+		}
+		return product;
+	}
+
+	/**
+	 * 归还 A 产品，无状态产品与未实现 Resettable 的产品忽略
+	 */
+	public void release(IProductA product)
+	{
+		family1.release(product);
+	}
+
+	/**
+	 * 归还 B 产品，无状态产品与未实现 Resettable 的产品忽略
+	 */
+	public void release(IProductB product)
+	{
+		family2.release(product);
+	}
+
+	static boolean isStateless(Class<?> type)
+	{
+		return STATELESS.get(type);
+	}
+
+	/** 被包装工厂的创建次数 */
+	public long getCreated()
+	{
+		return created.sum();
+	}
+
+	public long getSharedHits()
+	{
+		return sharedHits.sum();
+	}
+
+	public long getRecycledHits()
+	{
+		return recycledHits.sum();
+	}
+
+	public long getEvictions()
+	{
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CachingFactory[created=" + getCreated() + ", sharedHits=" + getSharedHits() + ", recycledHits="
+				+ getRecycledHits() + ", evictions=" + getEvictions() + "]";
+	}
+
+	/**
+	 * 一个产品族的缓存
+	 */
+	private final class Family<T>
+	{
+		private final int capacity;
+		private volatile T shared;
+		private final ConcurrentLinkedDeque<T> recycled = new ConcurrentLinkedDeque<T>();
+		private final AtomicInteger size = new AtomicInteger();
+
+		Family(int capacity)
+		{
+			this.capacity = capacity;
+		}
+
+		/**
+		 * 取共享实例或回收实例，都没有时返回 null
+		 */
+		T take()
+		{
+			T product = shared;
+			if (product != null)
+			{
+				if (recordStats)
+				{
+					sharedHits.increment();
+				}
+				return product;
+			}
+			product = recycled.pollLast();
+			if (product != null)
+			{
+				size.decrementAndGet();
+				recycledHits.increment();
+			}
+			return product;
+		}
+
+		/**
+		 * 处理被包装工厂新创建的实例，无状态时设为共享实例
+		 */
+		T share(T product)
+		{
+			created.increment();
+			if (product != null && isStateless(product.getClass()))
+			{
+				shared = product;
+			}
+			return product;
+		}
+
+		void release(T product)
+		{
+			if (!(product instanceof Resettable) || product == shared || isStateless(product.getClass()))
+			{
+				return; // 无法清除状态的实例不复用
+			}
+			((Resettable) product).reset();
+			recycled.offerLast(product);
+			if (size.incrementAndGet() > capacity && recycled.pollFirst() != null)
+			{
+				size.decrementAndGet();
+				evictions.increment();
+			}
+		}
+	}
+}
+
+
+/**
+ * 声明产品类无状态，可以被 CachingFactory 共享
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@interface Stateless {}
+
+
+/**
+ * 可以清除状态的产品，CachingFactory 只复用实现了此接口的有状态产品
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+interface Resettable
+{
+	/**
+	 * 恢复到刚创建时的状态，实例归还给 CachingFactory 时调用
+	 */
+	void reset();
+}
+
+
+/**
+ * 测试类
+ * 	同时对比包装前后每次创建产品分配的字节数。
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class CachingFactoryTest
+{
+	/**
+	 * 有状态的 A 产品
+	 */
+	static class CounterProduct implements IProductA, Resettable
+	{
+		int count;
+
+		public void show()
+		{
+			OutputSink.get().println("计数：", String.valueOf(count));
+		}
+
+		public void reset()
+		{
+			count = 0;
+		}
+	}
+
+	/**
+	 * 有状态但不能清除状态的 A 产品
+	 */
+	static class TaggedProduct implements IProductA
+	{
+		String tag;
+
+		public void show()
+		{
+			OutputSink.get().println("标签：", tag);
+		}
+	}
+
+	private static final Object[] SINK = new Object[1024];
+	private static int cursor;
+
+	/**
+	 * 让产品逃逸出基准循环，避免分配被逃逸分析消除
+	 */
+	private static Object keep(Object product)
+	{
+		SINK[cursor++ & (SINK.length - 1)] = product;
+		return product;
+	}
+
+	public static void main(String[] args)
+	{
+		final AbstractFactory plain = new Factory1();
+		final CachingFactory caching = new CachingFactory(plain);
+		caching.createProduct1().show();
+		caching.createProduct2().show();
+		System.out.println(caching.createProduct1() == caching.createProduct1()); // 返回 true，无状态产品共享
+
+		CachingFactory stateful = new CachingFactory(new AbstractFactory()
+		{
+			public IProductA createProduct1()
+			{
+				return new CounterProduct();
+			}
+
+			public IProductB createProduct2()
+			{
+				return new Product2();
+			}
+		}, 2);
+		CounterProduct p1 = (CounterProduct) stateful.createProduct1();
+		System.out.println(p1 != stateful.createProduct1()); // 返回 true，有状态产品不共享
+		p1.count = 5;
+		stateful.release(p1);
+		System.out.println(p1 == stateful.createProduct1() && p1.count == 0); // 返回 true，复用归还的实例，状态已清除
+		for (int i = 0; i < 3; i++)
+		{
+			stateful.release(new CounterProduct());
+		}
+		System.out.println(stateful.getEvictions() == 1); // 返回 true
+		System.out.println(stateful);
+
+		CachingFactory tagged = new CachingFactory(new AbstractFactory()
+		{
+			public IProductA createProduct1()
+			{
+				return new TaggedProduct();
+			}
+
+			public IProductB createProduct2()
+			{
+				return new Product2();
+			}
+		}, 2);
+		TaggedProduct t1 = (TaggedProduct) tagged.createProduct1();
+		t1.tag = "上一个调用方";
+		tagged.release(t1);
+		System.out.println(t1 != tagged.createProduct1()); // 返回 true，不能清除状态的实例不复用
+
+		BenchmarkRunner runner = new BenchmarkRunner(300, 700, 1024);
+		BenchmarkRunner.printHeader();
+		System.out.println(runner.run("Factory1", 1, () -> keep(plain.createProduct1())));
+		System.out.println(runner.run("CachingFactory", 1, () -> keep(caching.createProduct1())));
+		final CachingFactory noStats = new CachingFactory(plain, 32, false);
+		System.out.println(runner.run("CachingFactory(noStats)", 1, () -> keep(noStats.createProduct1())));
+		System.out.println(caching);
+	}
+}
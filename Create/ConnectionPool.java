@@ -0,0 +1,354 @@
+package com.cqupt.mauger.create;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 数据库连接池
+ * 	DataSourceEnum 单例背后的连接池，连接数量在最小值与最大值之间。
+ *
+ * 实现：
+ * 	1）借出许可：Semaphore 的许可数即最大连接数，未发生竞争时获取许可只是一次 CAS；许可不足时限时等待，
+ * 	       Semaphore 基于 AQS 与 LockSupport，不使用 synchronized 和 Object.wait()，等待时不会钉住虚拟线程的载体线程。
+ * 	2）线程亲和：每个线程记住自己上一次归还的连接，下次优先 CAS 取回，命中时不访问共享队列。
+ * 	3）共享队列：空闲连接放入无锁的 ConcurrentLinkedQueue，每个连接在队列中至多出现一次。
+ * 	4）连接不足且未达到最大值时创建新连接。
+ *
+ * 指标：
+ * 	活动连接数、空闲连接数、总连接数、等待次数、累计等待时间、超时次数。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class ConnectionPool
+{
+	private final Supplier<? extends DBConnection> factory;
+	private final int minSize;
+	private final int maxSize;
+	private final long defaultTimeoutNanos;
+
+	private final Semaphore permits;
+	private final Queue<PooledConnection> idle = new ConcurrentLinkedQueue<PooledConnection>();
+	private final Map<DBConnection, PooledConnection> pooled = new ConcurrentHashMap<DBConnection, PooledConnection>();
+	private final ThreadLocal<PooledConnection> lastUsed = new ThreadLocal<PooledConnection>();
+	private final AtomicInteger total = new AtomicInteger();
+	private final AtomicInteger active = new AtomicInteger();
+
+	private final LongAdder waitCount = new LongAdder();
+	private final LongAdder waitNanos = new LongAdder();
+	private final LongAdder timeoutCount = new LongAdder();
+
+	/**
+	 * @param factory 创建连接的工厂
+	 * @param minSize 最小连接数，创建连接池时预先创建
+	 * @param maxSize 最大连接数
+	 * @param timeout 默认借出超时时间
+	 * @param unit 超时时间单位
+	 */
+	public ConnectionPool(Supplier<? extends DBConnection> factory, int minSize, int maxSize, long timeout, TimeUnit unit)
+	{
+		if (minSize < 0 || maxSize <= 0 || minSize > maxSize)
+		{
+			throw new IllegalArgumentException("连接数配置错误：min=" + minSize + ", max=" + maxSize);
+		}
+		this.factory = factory;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.defaultTimeoutNanos = unit.toNanos(timeout);
+		this.permits = new Semaphore(maxSize);
+		for (int i = 0; i < minSize; i++)
+		{
+			total.incrementAndGet();
+			PooledConnection pc = newPooledConnection();
+			pc.queued.set(true);
+			idle.offer(pc);
+		}
+	}
+
+	/**
+	 * 使用默认超时时间借出一个连接
+	 */
+	public DBConnection borrow() throws TimeoutException, InterruptedException
+	{
+		return borrow(defaultTimeoutNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * 借出一个连接，连接数已达最大值时最多等待 timeout
+	 * @param timeout 超时时间
+	 * @param unit 超时时间单位
+	 * @return 连接，使用完毕后必须调用 release 归还
+	 * @throws TimeoutException 等待超时
+	 * @throws InterruptedException 等待时被中断
+	 */
+	public DBConnection borrow(long timeout, TimeUnit unit) throws TimeoutException, InterruptedException
+	{
+		if (!permits.tryAcquire())
+		{
+			long begin = System.nanoTime();
+			boolean acquired = permits.tryAcquire(timeout, unit);
+			waitCount.increment();
+			waitNanos.add(System.nanoTime() - begin);
+			if (!acquired)
+			{
+				timeoutCount.increment();
+				throw new TimeoutException("获取数据库连接超时，最大连接数：" + maxSize);
+			}
+		}
+		try
+		{
+			PooledConnection pc = take();
+			active.incrementAndGet();
+			return pc.connection;
+		} catch (RuntimeException | Error e)
+		{
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * 归还连接
+	 * @param connection 由 borrow 借出的连接
+	 */
+	public void release(DBConnection connection)
+	{
+		PooledConnection pc = connection == null ? null : pooled.get(connection);
+		if (pc == null)
+		{
+			throw new IllegalArgumentException("连接不属于此连接池");
+		}
+		if (!pc.inUse.compareAndSet(true, false))
+		{
+			throw new IllegalStateException("连接已归还");
+		}
+		active.decrementAndGet();
+		lastUsed.set(pc);
+		// 先标记空闲再检查 queued，与 take 中的顺序相反，保证空闲连接总能被找到
+		if (pc.queued.compareAndSet(false, true))
+		{
+			idle.offer(pc);
+		}
+		permits.release();
+	}
+
+	/**
+	 * 已持有许可，取得一个空闲连接或创建新连接
+	 */
+	private PooledConnection take()
+	{
+		PooledConnection pc = lastUsed.get();
+		if (pc != null && pc.inUse.compareAndSet(false, true))
+		{
+			return pc;
+		}
+		while (true)
+		{
+			while ((pc = idle.poll()) != null)
+			{
+				pc.queued.set(false);
+				if (pc.inUse.compareAndSet(false, true))
+				{
+					return pc;
+				}
+			}
+			int n = total.get();
+			if (n < maxSize)
+			{
+				if (total.compareAndSet(n, n + 1))
+				{
+					try
+					{
+						PooledConnection created = newPooledConnection();
+						created.inUse.set(true);
+						return created;
+					} catch (RuntimeException | Error e)
+					{
+						total.decrementAndGet();
+						throw e;
+					}
+				}
+			}
+			else
+			{
+				// 持有许可说明必有空闲连接，只是归还线程还没有把它放回队列
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	private PooledConnection newPooledConnection()
+	{
+		DBConnection connection = factory.get();
+		PooledConnection pc = new PooledConnection(connection);
+		pooled.put(connection, pc);
+		return pc;
+	}
+
+	public int getMinSize()
+	{
+		return minSize;
+	}
+
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+
+	/** 已借出的连接数 */
+	public int getActiveCount()
+	{
+		return active.get();
+	}
+
+	/** 已创建但未借出的连接数 */
+	public int getIdleCount()
+	{
+		return Math.max(0, total.get() - active.get());
+	}
+
+	/** 已创建的连接数 */
+	public int getTotalCount()
+	{
+		return total.get();
+	}
+
+	/** 快速路径失败后进入等待的次数 */
+	public long getWaitCount()
+	{
+		return waitCount.sum();
+	}
+
+	/** 累计等待时间，单位纳秒 */
+	public long getWaitNanos()
+	{
+		return waitNanos.sum();
+	}
+
+	/** 等待超时的次数 */
+	public long getTimeoutCount()
+	{
+		return timeoutCount.sum();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ConnectionPool[active=" + getActiveCount() + ", idle=" + getIdleCount() + ", total=" + getTotalCount()
+				+ ", waits=" + getWaitCount() + ", waitMillis=" + TimeUnit.NANOSECONDS.toMillis(getWaitNanos())
+				+ ", timeouts=" + getTimeoutCount() + "]";
+	}
+
+	/**
+	 * 池中的连接及其状态
+	 */
+	private static final class PooledConnection
+	{
+		final DBConnection connection;
+		final AtomicBoolean inUse = new AtomicBoolean();
+		final AtomicBoolean queued = new AtomicBoolean();
+
+		PooledConnection(DBConnection connection)
+		{
+			this.connection = connection;
+		}
+	}
+}
+
+
+/**
+ * 内存中的数据库连接，用于测试
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class InMemoryDBConnection extends DBConnection
+{
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+	private final int id = SEQUENCE.incrementAndGet();
+
+	public int getId()
+	{
+		return id;
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class ConnectionPoolTest
+{
+	public static void main(String[] args) throws Exception
+	{
+		final ConnectionPool pool = new ConnectionPool(InMemoryDBConnection::new, 2, 4, 200, TimeUnit.MILLISECONDS);
+		System.out.println(pool.getTotalCount() == 2); // 返回 true
+
+		// 同一线程归还后再借出，拿到的是同一个连接
+		DBConnection conn1 = pool.borrow();
+		pool.release(conn1);
+		DBConnection conn2 = pool.borrow();
+		System.out.println(conn1 == conn2); // 返回 true
+		pool.release(conn2);
+
+		// 借满后再借出会超时
+		DBConnection[] all = new DBConnection[4];
+		for (int i = 0; i < all.length; i++)
+		{
+			all[i] = pool.borrow();
+		}
+		try
+		{
+			pool.borrow();
+			System.out.println(false);
+		} catch (TimeoutException e)
+		{
+			System.out.println(pool.getTimeoutCount() == 1); // 返回 true
+		}
+		for (DBConnection conn : all)
+		{
+			pool.release(conn);
+		}
+
+		// 多线程并发借还，借出的连接数不超过最大值
+		final AtomicInteger maxActive = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(16);
+		for (int t = 0; t < 16; t++)
+		{
+			new Thread(() -> {
+				try
+				{
+					for (int i = 0; i < 10000; i++)
+					{
+						DBConnection conn = pool.borrow(1, TimeUnit.SECONDS);
+						maxActive.accumulateAndGet(pool.getActiveCount(), Math::max);
+						pool.release(conn);
+					}
+				} catch (Exception e)
+				{
+					e.printStackTrace();
+				} finally
+				{
+					done.countDown();
+				}
+			}).start();
+		}
+		done.await();
+		System.out.println(maxActive.get() <= 4 && pool.getTotalCount() <= 4 && pool.getActiveCount() == 0); // 返回 true
+		System.out.println(pool);
+	}
+}
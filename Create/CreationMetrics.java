@@ -0,0 +1,448 @@
+package com.cqupt.mauger.create;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import com.cqupt.mauger.benchmark.BenchmarkRunner;
+
+/**
+ * 创建型模式的指标
+ * 	统计工厂、建造者、原型与单例的创建次数、创建耗时，以及同步路径（如 Singleton1）上的锁竞争，并通过 JMX 导出。
+ *
+ * 实现：
+ * 	1）每个创建点一个 CreationProbe，计数使用 LongAdder（分段计数），多线程同时计数时不会争用同一个缓存行。
+ * 	2）耗时按 1/SAMPLE_RATE 抽样：未抽中的调用只做一次 LongAdder 累加，不调用 System.nanoTime()。
+ * 	3）锁竞争：与耗时一样按 1/SAMPLE_RATE 抽样，抽中的调用在进入同步块前后各取一次时间，等待超过 CONTENTION_THRESHOLD_NANOS 记为一次竞争；
+ * 	       未抽中的调用在同步块内没有任何埋点，end() 在退出同步块之后调用。
+ * 	4）创建点第一次使用时由后台线程注册为 MBean，ObjectName 见 CreationProbeMBean。
+ * 	       后台线程在第一次导出时才创建，空闲 EXPORTER_KEEP_ALIVE_SECONDS 秒后退出，不会一直持有类加载器；
+ * 	       导出任务尚未执行时，新的创建点不再重复提交。
+ * 	5）静态方法（getInstance、Prototype.clone）直接在方法中埋点；接口与抽象类（FactoryMethod、AbstractFactory、Builder）
+ * 	       通过 instrument 返回带埋点的装饰者。工厂由调用方自行创建，需要调用方显式 instrument；
+ * 	       Director 默认使用的线程本地建造者已经装饰。关闭埋点时 instrument 原样返回，不增加一层调用。
+ *
+ * 注意事项：
+ * 	启动参数 -Dcreation.metrics=false 关闭所有埋点，此时 ENABLED 为常量 false，埋点代码会被 JIT 消除。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class CreationMetrics
+{
+	static final boolean ENABLED = !"false".equals(System.getProperty("creation.metrics"));
+	static final int SAMPLE_RATE = 16;
+	static final long CONTENTION_THRESHOLD_NANOS = 1000;
+	static final String DOMAIN = "com.cqupt.mauger.create";
+
+	static final long EXPORTER_KEEP_ALIVE_SECONDS = 1;
+
+	private static final ConcurrentMap<String, CreationProbe> PROBES = new ConcurrentHashMap<String, CreationProbe>();
+	private static final AtomicBoolean EXPORT_PENDING = new AtomicBoolean();
+
+	private CreationMetrics() {}
+
+	/**
+	 * 取得创建点的探针，第一次取得时注册 MBean
+	 * @param name 创建点名称，例如 Singleton1.getInstance
+	 */
+	static CreationProbe probe(String name)
+	{
+		CreationProbe probe = PROBES.get(name);
+		if (probe != null)
+		{
+			return probe;
+		}
+		probe = PROBES.computeIfAbsent(name, CreationProbe::new);
+		// 放入 PROBES 之后再提交，导出任务一定能看到这个探针
+		if (ENABLED && !probe.exported && EXPORT_PENDING.compareAndSet(false, true))
+		{
+			Exporter.EXECUTOR.execute(CreationMetrics::export);
+		}
+		return probe;
+	}
+
+	/**
+	 * 导出线程池，第一次使用时才加载（静态内部类），核心线程空闲超时后退出
+	 */
+	private static final class Exporter
+	{
+		static final ThreadPoolExecutor EXECUTOR = newExecutor();
+
+		private static ThreadPoolExecutor newExecutor()
+		{
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, EXPORTER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), r -> {
+						Thread t = new Thread(r, "creation-metrics-exporter");
+						t.setDaemon(true);
+						return t;
+					});
+			executor.allowCoreThreadTimeOut(true);
+			return executor;
+		}
+	}
+
+	/**
+	 * 把尚未注册的探针注册为 MBean
+	 * 	通常由后台线程调用；平台 MBeanServer 初始化需要上百毫秒，不能让单例的类初始化等待它。
+	 */
+	static synchronized void export()
+	{
+		EXPORT_PENDING.set(false); // 此后注册的探针会再提交一次导出
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for (CreationProbe probe : PROBES.values())
+		{
+			if (probe.exported)
+			{
+				continue;
+			}
+			try
+			{
+				ObjectName objectName = objectName(probe.getName());
+				if (!server.isRegistered(objectName))
+				{
+					server.registerMBean(new StandardMBean(probe, CreationProbeMBean.class), objectName);
+				}
+				probe.exported = true;
+			} catch (JMException e)
+			{
+				e.printStackTrace(); // 指标导出失败不影响创建
+			}
+		}
+	}
+
+	static ObjectName objectName(String name) throws JMException
+	{
+		return new ObjectName(DOMAIN + ":type=CreationMetrics,name=" + ObjectName.quote(name));
+	}
+
+	/**
+	 * 返回带埋点的工厂，探针名称为 工厂类名.createProduct
+	 */
+	static FactoryMethod instrument(final FactoryMethod factory)
+	{
+		if (!ENABLED)
+		{
+			return factory;
+		}
+		final CreationProbe probe = probe(factory.getClass().getSimpleName() + ".createProduct");
+		return new FactoryMethod()
+		{
+			public IProduct createProduct()
+			{
+				long begin = probe.begin();
+				try
+				{
+					return factory.createProduct();
+				} finally
+				{
+					probe.end(begin);
+				}
+			}
+		};
+	}
+
+	/**
+	 * 返回带埋点的抽象工厂，探针名称为 工厂类名.createProduct1 与 工厂类名.createProduct2
+	 */
+	static AbstractFactory instrument(final AbstractFactory factory)
+	{
+		if (!ENABLED)
+		{
+			return factory;
+		}
+		String prefix = factory.getClass().getSimpleName();
+		final CreationProbe probe1 = probe(prefix + ".createProduct1");
+		final CreationProbe probe2 = probe(prefix + ".createProduct2");
+		return new AbstractFactory()
+		{
+			public IProductA createProduct1()
+			{
+				long begin = probe1.begin();
+				try
+				{
+					return factory.createProduct1();
+				} finally
+				{
+					probe1.end(begin);
+				}
+			}
+
+			public IProductB createProduct2()
+			{
+				long begin = probe2.begin();
+				try
+				{
+					return factory.createProduct2();
+				} finally
+				{
+					probe2.end(begin);
+				}
+			}
+		};
+	}
+
+	/**
+	 * 返回带埋点的建造者，探针名称为 建造者类名.getProduct
+	 */
+	static Builder instrument(final Builder builder)
+	{
+		if (!ENABLED)
+		{
+			return builder;
+		}
+		final CreationProbe probe = probe(builder.getClass().getSimpleName() + ".getProduct");
+		return new Builder()
+		{
+			@Override
+			public void setPart(String name, String type)
+			{
+				builder.setPart(name, type);
+			}
+
+			@Override
+			public ProductB getProduct()
+			{
+				long begin = probe.begin();
+				try
+				{
+					return builder.getProduct();
+				} finally
+				{
+					probe.end(begin);
+				}
+			}
+
+			@Override
+			public void reset()
+			{
+				builder.reset();
+			}
+		};
+	}
+}
+
+
+/**
+ * 创建点探针
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class CreationProbe implements CreationProbeMBean
+{
+	private final String name;
+	volatile boolean exported;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sampled = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	private final LongAdder contended = new LongAdder();
+	private final LongAdder contentionNanos = new LongAdder();
+
+	CreationProbe(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * 开始一次创建
+	 * @return 抽中计时时返回开始时间，否则返回 0
+	 */
+	long begin()
+	{
+		if (CreationMetrics.ENABLED && (ThreadLocalRandom.current().nextInt() & (CreationMetrics.SAMPLE_RATE - 1)) == 0)
+		{
+			return System.nanoTime();
+		}
+		return 0;
+	}
+
+	/**
+	 * 结束一次创建
+	 * @param begin begin() 的返回值
+	 */
+	void end(long begin)
+	{
+		if (CreationMetrics.ENABLED)
+		{
+			count.increment();
+			if (begin != 0)
+			{
+				long elapsed = System.nanoTime() - begin;
+				sampled.increment();
+				totalNanos.add(elapsed);
+				maxNanos.accumulate(elapsed);
+			}
+		}
+	}
+
+	/**
+	 * 准备进入同步块，与 begin() 一样抽样
+	 * @return 抽中计时时返回当前时间，否则返回 0
+	 */
+	long lockRequested()
+	{
+		return begin();
+	}
+
+	/**
+	 * 已经进入同步块
+	 * @param requested lockRequested() 的返回值
+	 */
+	void lockAcquired(long requested)
+	{
+		if (CreationMetrics.ENABLED && requested != 0)
+		{
+			long waited = System.nanoTime() - requested;
+			if (waited > CreationMetrics.CONTENTION_THRESHOLD_NANOS)
+			{
+				contended.increment();
+				contentionNanos.add(waited);
+			}
+		}
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public long getCount()
+	{
+		return count.sum();
+	}
+
+	public long getSampledCount()
+	{
+		return sampled.sum();
+	}
+
+	public double getMeanNanos()
+	{
+		long n = sampled.sum();
+		return n == 0 ? 0 : (double) totalNanos.sum() / n;
+	}
+
+	public long getMaxNanos()
+	{
+		return maxNanos.get();
+	}
+
+	public long getContendedCount()
+	{
+		return contended.sum();
+	}
+
+	public long getContentionNanos()
+	{
+		return contentionNanos.sum();
+	}
+
+	public void reset()
+	{
+		count.reset();
+		sampled.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+		contended.reset();
+		contentionNanos.reset();
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s[count=%d, mean=%.1f ns, max=%d ns, contended=%d, contention=%d ns]", name, getCount(),
+				getMeanNanos(), getMaxNanos(), getContendedCount(), getContentionNanos());
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class CreationMetricsTest
+{
+	public static void main(String[] args) throws Exception
+	{
+		FactoryMethod factory = CreationMetrics.instrument(new Factory());
+		AbstractFactory factory1 = CreationMetrics.instrument(new Factory1());
+		Builder builder = CreationMetrics.instrument(new ConcreateBuilder());
+		ConcreatePrototype cp = new ConcreatePrototype();
+		for (int i = 0; i < 1000; i++)
+		{
+			factory.createProduct();
+			factory1.createProduct1();
+			factory1.createProduct2();
+			builder.setPart("宝马汽车", "X7");
+			builder.getProduct();
+			cp.clone();
+			Singleton.getInstance();
+			Singleton2.getInstance();
+		}
+		System.out.println(CreationMetrics.probe("Factory.createProduct").getCount() == 1000); // 返回 true
+		System.out.println(CreationMetrics.probe("Factory1.createProduct2").getCount() == 1000); // 返回 true
+		System.out.println(CreationMetrics.probe("ConcreateBuilder.getProduct").getCount() == 1000); // 返回 true
+		System.out.println(CreationMetrics.probe("Prototype.clone").getCount() == 1000); // 返回 true
+		System.out.println(CreationMetrics.probe("Singleton.getInstance").getCount() == 1000); // 返回 true
+
+		// Singleton1 的锁竞争
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread(() -> {
+				for (int j = 0; j < 200000; j++)
+				{
+					Singleton1.getInstance();
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread t : threads)
+		{
+			t.join();
+		}
+		CreationProbe singleton1 = CreationMetrics.probe("Singleton1.getInstance");
+		System.out.println(singleton1.getCount() == 8 * 200000); // 返回 true
+		System.out.println(singleton1);
+
+		// 通过 JMX 读取
+		CreationMetrics.export();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		Object count = server.getAttribute(CreationMetrics.objectName("Prototype.clone"), "Count");
+		System.out.println(Long.valueOf(1000).equals(count)); // 返回 true
+
+		// 导出线程空闲后退出
+		Thread.sleep(TimeUnit.SECONDS.toMillis(CreationMetrics.EXPORTER_KEEP_ALIVE_SECONDS) + 500);
+		boolean exporterAlive = false;
+		for (Thread t : Thread.getAllStackTraces().keySet())
+		{
+			exporterAlive |= t.getName().equals("creation-metrics-exporter");
+		}
+		System.out.println(!exporterAlive); // 返回 true
+
+		// 埋点开销
+		final FactoryMethod plain = new Factory();
+		BenchmarkRunner runner = new BenchmarkRunner(300, 700, 1024);
+		BenchmarkRunner.printHeader();
+		System.out.println(runner.run("Factory", 1, () -> plain.createProduct()));
+		System.out.println(runner.run("Factory(instrumented)", 1, () -> factory.createProduct()));
+		System.out.println(runner.run("Factory(instrumented)", 4, () -> factory.createProduct()));
+	}
+}
@@ -0,0 +1,34 @@
+package com.cqupt.mauger.create;
+
+/**
+ * 创建点的 JMX 管理接口
+ * 	每个创建点（例如 Singleton1.getInstance、Prototype.clone）注册一个 MBean，
+ * 	ObjectName 为 com.cqupt.mauger.create:type=CreationMetrics,name=创建点名称。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public interface CreationProbeMBean
+{
+	/** 调用次数 */
+	long getCount();
+
+	/** 参与计时的调用次数（按采样率抽样） */
+	long getSampledCount();
+
+	/** 抽样调用的平均耗时（纳秒） */
+	double getMeanNanos();
+
+	/** 抽样调用的最大耗时（纳秒） */
+	long getMaxNanos();
+
+	/** 抽样调用中，在同步路径上等锁超过阈值的次数 */
+	long getContendedCount();
+
+	/** 抽样调用中，在同步路径上等锁的总时间（纳秒） */
+	long getContentionNanos();
+
+	/** 清零所有指标 */
+	void reset();
+}
@@ -0,0 +1,460 @@
+package com.cqupt.mauger.create;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * 深拷贝引擎
+ * 	为每个类生成一次专用的拷贝器并缓存在 ClassValue 中，之后拷贝同一个类的对象不再使用反射。
+ *
+ * 拷贝规则：
+ * 	1）不可变类型（String、包装类型、枚举、Class、BigInteger、BigDecimal、UUID、java.time 下的类型）直接共享。
+ * 	2）基本类型数组用 clone() 整块拷贝；对象数组先整块拷贝，再逐个元素深拷贝。
+ * 	3）Prototype 子类先调用 clone() 完成浅拷贝（基本类型字段随之拷贝），再通过缓存的 MethodHandle 深拷贝引用类型字段。
+ * 	4）其他自定义类通过无参构造方法的 MethodHandle 创建实例，再逐个字段拷贝。
+ * 	5）Collection、Map 通过无参构造方法创建同类型容器（有序容器保留比较器），再逐个元素深拷贝。
+ * 	6）其他实现了公开 clone() 的 JDK 类型（如 Date、BitSet）调用 clone()；都不满足时，生成拷贝器时抛出 IllegalArgumentException。
+ *
+ * 循环引用：
+ * 	一次拷贝内用 IdentityHashMap 记录已拷贝的对象，同一个对象只拷贝一次，循环引用与共享引用的结构都会保留。
+ * 	除不可变类型外，每个拷贝都会登记，只有基本类型字段的对象被多处引用时同样只拷贝一次。
+ * 	这个表在第一次登记时才创建：根对象只有基本类型字段时，图中没有其他对象会引用它，不需要登记，拷贝它不会创建这个表。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class DeepCopier
+{
+	private static final ClassValue<Copier> COPIERS = new ClassValue<Copier>()
+	{
+		@Override
+		protected Copier computeValue(Class<?> type)
+		{
+			return build(type);
+		}
+	};
+
+	private static final Copier IMMUTABLE = (source, context) -> source;
+
+	private DeepCopier() {}
+
+	/**
+	 * 深拷贝对象
+	 * @param source 源对象，可以为 null
+	 * @return 拷贝
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T copy(T source)
+	{
+		if (source == null)
+		{
+			return null;
+		}
+		return (T) COPIERS.get(source.getClass()).copy(source, new CopyContext());
+	}
+
+	static Object copy(Object source, CopyContext context)
+	{
+		if (source == null)
+		{
+			return null;
+		}
+		Copier copier = COPIERS.get(source.getClass());
+		if (copier == IMMUTABLE)
+		{
+			return source;
+		}
+		Object copied = context.get(source);
+		return copied != null ? copied : copier.copy(source, context);
+	}
+
+	/**
+	 * 生成指定类的拷贝器，每个类只执行一次
+	 */
+	private static Copier build(Class<?> type)
+	{
+		if (isImmutable(type))
+		{
+			return IMMUTABLE;
+		}
+		if (type.isArray())
+		{
+			return arrayCopier(type.getComponentType());
+		}
+		if (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type))
+		{
+			return containerCopier(type);
+		}
+		if (type.getModule().isNamed() && type.getModule().getLayer() == ModuleLayer.boot())
+		{
+			return publicCloneCopier(type);
+		}
+		return new BeanCopier(type);
+	}
+
+	private static boolean isImmutable(Class<?> type)
+	{
+		return type.isPrimitive() || type == String.class || type == Boolean.class || type == Character.class
+				|| Number.class.isAssignableFrom(type) && type.getName().startsWith("java.lang.")
+				|| type.isEnum() || Enum.class.isAssignableFrom(type) || type == Class.class
+				|| type == BigInteger.class || type == BigDecimal.class || type == UUID.class
+				|| type.getPackageName().startsWith("java.time");
+	}
+
+	private static Copier arrayCopier(Class<?> component)
+	{
+		if (component == int.class)     return (s, c) -> c.put(s, ((int[]) s).clone());
+		if (component == long.class)    return (s, c) -> c.put(s, ((long[]) s).clone());
+		if (component == byte.class)    return (s, c) -> c.put(s, ((byte[]) s).clone());
+		if (component == char.class)    return (s, c) -> c.put(s, ((char[]) s).clone());
+		if (component == short.class)   return (s, c) -> c.put(s, ((short[]) s).clone());
+		if (component == float.class)   return (s, c) -> c.put(s, ((float[]) s).clone());
+		if (component == double.class)  return (s, c) -> c.put(s, ((double[]) s).clone());
+		if (component == boolean.class) return (s, c) -> c.put(s, ((boolean[]) s).clone());
+		final boolean immutableElements = isImmutable(component) && (component.isPrimitive()
+				|| Modifier.isFinal(component.getModifiers()) || component.isEnum());
+		return (source, context) -> {
+			Object[] copy = ((Object[]) source).clone();
+			context.put(source, copy);
+			if (!immutableElements)
+			{
+				for (int i = 0; i < copy.length; i++)
+				{
+					copy[i] = copy(copy[i], context);
+				}
+			}
+			return copy;
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Copier containerCopier(Class<?> type)
+	{
+		final boolean sortedSet = SortedSet.class.isAssignableFrom(type);
+		final boolean sortedMap = SortedMap.class.isAssignableFrom(type);
+		final MethodHandle constructor = sortedSet || sortedMap ? null : publicConstructor(type);
+		return (source, context) -> {
+			Object copy;
+			if (sortedSet)
+			{
+				copy = new TreeSet<Object>(((SortedSet<Object>) source).comparator());
+			}
+			else if (sortedMap)
+			{
+				copy = new TreeMap<Object, Object>(((SortedMap<Object, Object>) source).comparator());
+			}
+			else
+			{
+				copy = invoke(constructor);
+			}
+			context.put(source, copy);
+			if (source instanceof Map)
+			{
+				Map<Object, Object> target = (Map<Object, Object>) copy;
+				for (Map.Entry<Object, Object> e : ((Map<Object, Object>) source).entrySet())
+				{
+					target.put(copy(e.getKey(), context), copy(e.getValue(), context));
+				}
+			}
+			else
+			{
+				Collection<Object> target = (Collection<Object>) copy;
+				for (Object e : (Collection<Object>) source)
+				{
+					target.add(copy(e, context));
+				}
+			}
+			return copy;
+		};
+	}
+
+	private static Copier publicCloneCopier(Class<?> type)
+	{
+		if (!Cloneable.class.isAssignableFrom(type))
+		{
+			throw new IllegalArgumentException("不支持深拷贝的类型：" + type.getName());
+		}
+		try
+		{
+			final MethodHandle clone = MethodHandles.publicLookup().findVirtual(type, "clone", MethodType.methodType(Object.class))
+					.asType(MethodType.methodType(Object.class, Object.class));
+			return (source, context) -> {
+				try
+				{
+					return context.put(source, clone.invokeExact(source));
+				} catch (Throwable e)
+				{
+					throw new IllegalStateException(e);
+				}
+			};
+		} catch (ReflectiveOperationException e)
+		{
+			throw new IllegalArgumentException("不支持深拷贝的类型：" + type.getName(), e);
+		}
+	}
+
+	private static MethodHandle publicConstructor(Class<?> type)
+	{
+		try
+		{
+			return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class))
+					.asType(MethodType.methodType(Object.class));
+		} catch (ReflectiveOperationException e)
+		{
+			throw new IllegalArgumentException("容器类型没有公开的无参构造方法：" + type.getName(), e);
+		}
+	}
+
+	private static Object invoke(MethodHandle constructor)
+	{
+		try
+		{
+			return constructor.invokeExact();
+		} catch (Throwable e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * 拷贝器
+	 */
+	interface Copier
+	{
+		Object copy(Object source, CopyContext context);
+	}
+
+	/**
+	 * 自定义类的拷贝器
+	 */
+	private static final class BeanCopier implements Copier
+	{
+		private final boolean prototype;
+		private final MethodHandle constructor;
+		private final MethodHandle[] getters;
+		private final MethodHandle[] setters;
+		private final boolean[] deep;
+		private final boolean references;
+
+		BeanCopier(Class<?> type)
+		{
+			prototype = Prototype.class.isAssignableFrom(type);
+			List<MethodHandle> getterList = new ArrayList<MethodHandle>();
+			List<MethodHandle> setterList = new ArrayList<MethodHandle>();
+			List<Boolean> deepList = new ArrayList<Boolean>();
+			try
+			{
+				MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+				constructor = prototype ? null : lookup.findConstructor(type, MethodType.methodType(void.class))
+						.asType(MethodType.methodType(Object.class));
+				for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass())
+				{
+					MethodHandles.Lookup fieldLookup = MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+					for (Field f : c.getDeclaredFields())
+					{
+						if (Modifier.isStatic(f.getModifiers()))
+						{
+							continue;
+						}
+						boolean primitive = f.getType().isPrimitive();
+						if (prototype && primitive)
+						{
+							continue; // clone() 已拷贝基本类型字段
+						}
+						f.setAccessible(true);
+						getterList.add(fieldLookup.unreflectGetter(f).asType(MethodType.methodType(Object.class, Object.class)));
+						setterList.add(fieldLookup.unreflectSetter(f).asType(MethodType.methodType(void.class, Object.class, Object.class)));
+						deepList.add(!primitive);
+					}
+				}
+			} catch (ReflectiveOperationException | RuntimeException e)
+			{
+				throw new IllegalArgumentException("无法为 " + type.getName() + " 生成拷贝器，需要无参构造方法或继承 Prototype", e);
+			}
+			getters = getterList.toArray(new MethodHandle[0]);
+			setters = setterList.toArray(new MethodHandle[0]);
+			deep = new boolean[deepList.size()];
+			for (int i = 0; i < deep.length; i++)
+			{
+				deep[i] = deepList.get(i);
+			}
+			references = deepList.contains(Boolean.TRUE);
+		}
+
+		@Override
+		public Object copy(Object source, CopyContext context)
+		{
+			try
+			{
+				Object copy = prototype ? ((Prototype) source).clone() : (Object) constructor.invokeExact();
+				// 表为空说明这是根对象，没有引用类型字段时不会再有对象引用它
+				if (references || !context.isEmpty())
+				{
+					context.put(source, copy);
+				}
+				for (int i = 0; i < getters.length; i++)
+				{
+					Object value = (Object) getters[i].invokeExact(source);
+					if (deep[i])
+					{
+						value = DeepCopier.copy(value, context);
+					}
+					setters[i].invokeExact(copy, value);
+				}
+				return copy;
+			} catch (RuntimeException | Error e)
+			{
+				throw e;
+			} catch (Throwable e)
+			{
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	/**
+	 * 一次拷贝的上下文，记录源对象到拷贝的映射
+	 */
+	static final class CopyContext
+	{
+		private IdentityHashMap<Object, Object> copied;
+
+		Object get(Object source)
+		{
+			return copied == null ? null : copied.get(source);
+		}
+
+		boolean isEmpty()
+		{
+			return copied == null;
+		}
+
+		Object put(Object source, Object copy)
+		{
+			if (copied == null)
+			{
+				copied = new IdentityHashMap<Object, Object>();
+			}
+			copied.put(source, copy);
+			return copy;
+		}
+	}
+}
+
+
+/**
+ * 含数组、容器与循环引用的原型，用于测试深拷贝
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class DeepPrototype extends Prototype implements java.io.Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	int id;
+	String name;
+	int[] data;
+	double[][] matrix;
+	List<String> tags = new ArrayList<String>();
+	Map<String, int[]> attributes = new TreeMap<String, int[]>();
+	Node head;
+
+	/**
+	 * 链表节点，最后一个节点指回所属原型，形成循环引用
+	 */
+	static class Node implements java.io.Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		long value;
+		Node next;
+		DeepPrototype owner;
+	}
+
+	static DeepPrototype sample()
+	{
+		DeepPrototype p = new DeepPrototype();
+		p.id = 7;
+		p.name = "sample";
+		p.data = new int[256];
+		for (int i = 0; i < p.data.length; i++)
+		{
+			p.data[i] = i;
+		}
+		p.matrix = new double[8][8];
+		p.tags.add("hot");
+		p.tags.add("path");
+		p.attributes.put("k", new int[] { 1, 2, 3 });
+		Node tail = new Node();
+		tail.value = 2;
+		tail.owner = p;
+		p.head = new Node();
+		p.head.value = 1;
+		p.head.next = tail;
+		return p;
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class DeepCopierTest
+{
+	/**
+	 * 只有基本类型字段的类
+	 */
+	static class Point
+	{
+		int x;
+		int y;
+	}
+
+	public static void main(String[] args)
+	{
+		DeepPrototype source = DeepPrototype.sample();
+		DeepPrototype copy = (DeepPrototype) source.deepClone();
+
+		System.out.println(copy != source && copy.id == 7 && copy.name == source.name); // 返回 true，String 共享
+		System.out.println(copy.data != source.data && java.util.Arrays.equals(copy.data, source.data)); // 返回 true
+		System.out.println(copy.matrix[0] != source.matrix[0]); // 返回 true
+		System.out.println(copy.tags != source.tags && copy.tags.equals(source.tags)); // 返回 true
+		System.out.println(copy.attributes.get("k") != source.attributes.get("k")); // 返回 true
+		System.out.println(copy.head != source.head && copy.head.next.owner == copy); // 返回 true，循环引用指向拷贝
+
+		copy.data[0] = -1;
+		System.out.println(source.data[0] == 0); // 返回 true
+
+		// 只有基本类型字段的对象被两处引用，拷贝后仍是同一个对象
+		Point shared = new Point();
+		shared.x = 3;
+		List<Point> pair = new ArrayList<Point>();
+		pair.add(shared);
+		pair.add(shared);
+		List<Point> pairCopy = DeepCopier.copy(pair);
+		System.out.println(pairCopy.get(0) != shared && pairCopy.get(0) == pairCopy.get(1)); // 返回 true
+
+		ConcreatePrototype cp = new ConcreatePrototype();
+		((ConcreatePrototype) cp.deepClone()).show();
+	}
+}
@@ -0,0 +1,163 @@
+package com.cqupt.mauger.create;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cqupt.mauger.benchmark.BenchmarkRunner;
+
+/**
+ * 深拷贝基准测试
+ *
+ * 说明：
+ * 	比较三种方式深拷贝 DeepPrototype.sample() 的吞吐量、延迟与每次拷贝分配的字节数：
+ * 	1）deepClone：DeepCopier，按类缓存 MethodHandle 拷贝器。
+ * 	2）serialization：ObjectOutputStream 写出再用 ObjectInputStream 读回。
+ * 	3）reflection：通过 Field.get/set 递归拷贝。作为公平的对照，每个类的 Field[] 只查找一次并缓存在 ClassValue 中，
+ * 	       基本类型数组与 DeepCopier 一样用 clone() 整块拷贝，对象数组 clone() 后逐个元素拷贝，不逐个元素装箱。
+ *
+ * 运行：
+ * 	java com.cqupt.mauger.create.DeepCopyBenchmark
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public class DeepCopyBenchmark
+{
+	/** 每个类需要拷贝的实例字段，已设置为可访问 */
+	private static final ClassValue<Field[]> FIELDS = new ClassValue<Field[]>()
+	{
+		@Override
+		protected Field[] computeValue(Class<?> type)
+		{
+			List<Field> fields = new ArrayList<Field>();
+			for (Class<?> c = type; c != Object.class; c = c.getSuperclass())
+			{
+				for (Field f : c.getDeclaredFields())
+				{
+					if (!Modifier.isStatic(f.getModifiers()))
+					{
+						f.setAccessible(true);
+						fields.add(f);
+					}
+				}
+			}
+			return fields.toArray(new Field[0]);
+		}
+	};
+
+	public static void main(String[] args)
+	{
+		final DeepPrototype source = DeepPrototype.sample();
+		BenchmarkRunner runner = new BenchmarkRunner(1000, 2000, 64);
+		BenchmarkRunner.printHeader();
+		System.out.println(runner.run("deepClone", 1, () -> source.deepClone()));
+		System.out.println(runner.run("serialization", 1, () -> serializationCopy(source)));
+		System.out.println(runner.run("reflection", 1, () -> reflectiveCopy(source, new IdentityHashMap<Object, Object>())));
+	}
+
+	static Object serializationCopy(Object source)
+	{
+		try
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+			{
+				out.writeObject(source);
+			}
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+			{
+				return in.readObject();
+			}
+		} catch (IOException | ClassNotFoundException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * 基于反射的深拷贝，作为对照
+	 */
+	@SuppressWarnings("unchecked")
+	static Object reflectiveCopy(Object source, Map<Object, Object> copied)
+	{
+		if (source == null || source instanceof String || source instanceof Number || source instanceof Boolean
+				|| source instanceof Character || source instanceof Enum)
+		{
+			return source;
+		}
+		Object copy = copied.get(source);
+		if (copy != null)
+		{
+			return copy;
+		}
+		try
+		{
+			Class<?> type = source.getClass();
+			if (type.isArray())
+			{
+				if (type.getComponentType().isPrimitive())
+				{
+					copy = cloneArray(source);
+					copied.put(source, copy);
+					return copy;
+				}
+				Object[] array = ((Object[]) source).clone();
+				copied.put(source, array);
+				for (int i = 0; i < array.length; i++)
+				{
+					array[i] = reflectiveCopy(array[i], copied);
+				}
+				return array;
+			}
+			copy = type.getDeclaredConstructor().newInstance();
+			copied.put(source, copy);
+			if (source instanceof Collection)
+			{
+				for (Object e : (Collection<Object>) source)
+				{
+					((Collection<Object>) copy).add(reflectiveCopy(e, copied));
+				}
+				return copy;
+			}
+			if (source instanceof Map)
+			{
+				for (Map.Entry<Object, Object> e : ((Map<Object, Object>) source).entrySet())
+				{
+					((Map<Object, Object>) copy).put(reflectiveCopy(e.getKey(), copied), reflectiveCopy(e.getValue(), copied));
+				}
+				return copy;
+			}
+			for (Field f : FIELDS.get(type))
+			{
+				f.set(copy, f.getType().isPrimitive() ? f.get(source) : reflectiveCopy(f.get(source), copied));
+			}
+			return copy;
+		} catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Object cloneArray(Object array)
+	{
+		if (array instanceof int[])     return ((int[]) array).clone();
+		if (array instanceof long[])    return ((long[]) array).clone();
+		if (array instanceof double[])  return ((double[]) array).clone();
+		if (array instanceof byte[])    return ((byte[]) array).clone();
+		if (array instanceof char[])    return ((char[]) array).clone();
+		if (array instanceof short[])   return ((short[]) array).clone();
+		if (array instanceof float[])   return ((float[]) array).clone();
+		return ((boolean[]) array).clone();
+	}
+}
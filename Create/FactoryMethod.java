@@ -1,5 +1,7 @@
 package com.cqupt.mauger.create;
 
+import com.cqupt.mauger.output.OutputSink;
+
 /**
  * 工厂方法模式 Factory Method Pattern
  * 
@@ -92,7 +94,7 @@ class Product implements IProduct
 {
     public void productMethod()
     {
-        System.out.println("汽车");
+        OutputSink.get().println("汽车");
     }
 }
 
@@ -0,0 +1,706 @@
+package com.cqupt.mauger.create;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import com.cqupt.mauger.benchmark.BenchmarkRunner;
+
+/**
+ * 享元模式 Flyweight Pattern
+ *
+ * 类型：
+ * 	结构型模式
+ *
+ * 定义：
+ * 	运用共享技术有效地支持大量细粒度的对象。相同键的对象只保留一个实例，调用方共享它，而不是各自创建。
+ *
+ * 说明：
+ * 	RegSingleton 与 RegisterSingleton 的登记薄也是按键共享实例，但会永久持有所有登记过的实例。
+ * 	享元工厂的容量有上限，超出时按策略淘汰，值还可以用弱引用或软引用持有，不再使用时交给 GC 回收。
+ *
+ * 实现：
+ * 	1）存储：ConcurrentHashMap，命中时不加锁，只有一次哈希查找，节点的访问时钟落后时才写入当前时钟。
+ * 	       访问时钟只在写入时（持有 writeLock）前进，命中只读取它；同一个写入周期内反复命中热点键不再写节点，
+ * 	       多个线程读同一个键时不会争用它的缓存行。淘汰只发生在写入时，按写入划分的时钟足以区分最近访问过的实例。
+ * 	       命中不直接更新频率，而是把键的哈希记到 ReadBuffer（按线程分段、有损），持有 writeLock 时批量计入频率统计。
+ * 	2）淘汰：TinyLFU 准入 + 采样 LRU。用 Count-Min Sketch（AtomicLongArray，CAS 累加）近似统计每个键最近的访问频率；缓存满时随机抽取 SAMPLES 个实例，
+ * 	       取最久未访问的作为候选淘汰者，新键的频率高于它才被接纳，否则新值直接返回给调用方而不进入缓存。
+ * 	       频率计数累计到容量的 10 倍时全部减半，使频率随时间衰减。
+ * 	3）值保留：STRONG 强引用；WEAK 弱引用，调用方不再引用时即可回收；SOFT 软引用，内存紧张时回收。被回收的实例在下次写入时清理。
+ * 	4）统计：命中率、淘汰率（淘汰数 / 写入数）、被拒绝的写入数、被 GC 回收数，以及按 weigher 估算的内存占用。
+ *
+ * 注意事项：
+ * 	在缓存中的键保证只有一个实例；被淘汰、被拒绝或被回收后，同一个键可能得到新的实例。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class FlyweightFactory<K, V>
+{
+	/**
+	 * 值的保留方式
+	 */
+	enum Retention
+	{
+		STRONG, WEAK, SOFT
+	}
+
+	/** 每个实例在缓存中的固定开销估算（哈希表节点、缓存节点与引用对象） */
+	static final long ENTRY_OVERHEAD = 96;
+	static final int SAMPLES = 8;
+
+	private final Function<? super K, ? extends V> loader;
+	private final int maximumSize;
+	private final Retention retention;
+	private final ToLongFunction<? super V> weigher;
+	private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<K, Node<K, V>>();
+	private final FrequencySketch sketch;
+	private final ReadBuffer readBuffer = new ReadBuffer();
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final ReferenceQueue<V> cleared = new ReferenceQueue<V>();
+	@SuppressWarnings("unchecked")
+	private Node<K, V>[] nodes = (Node<K, V>[]) new Node<?, ?>[16]; // 由 writeLock 保护，用于随机抽样
+	private int size;
+	private volatile long clock; // 访问时钟，只在持有 writeLock 时前进
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder puts = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder rejections = new LongAdder();
+	private final LongAdder collected = new LongAdder();
+	private final AtomicLong weight = new AtomicLong();
+
+	/**
+	 * @param loader 键不在缓存中时创建实例
+	 * @param maximumSize 最多缓存的实例数
+	 * @param retention 值的保留方式
+	 */
+	public FlyweightFactory(Function<? super K, ? extends V> loader, int maximumSize, Retention retention)
+	{
+		this(loader, maximumSize, retention, v -> 0);
+	}
+
+	/**
+	 * @param weigher 估算单个实例本身占用的字节数，用于统计内存占用
+	 */
+	public FlyweightFactory(Function<? super K, ? extends V> loader, int maximumSize, Retention retention,
+			ToLongFunction<? super V> weigher)
+	{
+		if (maximumSize <= 0)
+		{
+			throw new IllegalArgumentException("容量必须大于 0：" + maximumSize);
+		}
+		this.loader = Objects.requireNonNull(loader);
+		this.maximumSize = maximumSize;
+		this.retention = Objects.requireNonNull(retention);
+		this.weigher = Objects.requireNonNull(weigher);
+		this.sketch = new FrequencySketch(maximumSize);
+	}
+
+	/**
+	 * 取得键对应的共享实例
+	 * @param key 键
+	 * @return 实例
+	 */
+	public V get(K key)
+	{
+		V value = getIfPresent(key);
+		if (value != null)
+		{
+			return value;
+		}
+		misses.increment();
+		value = loader.apply(key);
+		if (value == null)
+		{
+			throw new IllegalStateException("享元工厂创建了 null：" + key);
+		}
+		return put(key, value);
+	}
+
+	/**
+	 * 取得缓存中键对应的实例，不在缓存中时返回 null，不创建实例、不计为未命中
+	 */
+	public V getIfPresent(K key)
+	{
+		Node<K, V> node = map.get(key);
+		if (node == null)
+		{
+			return null;
+		}
+		V value = node.value();
+		if (value == null)
+		{
+			return null;
+		}
+		long now = clock;
+		if (node.access != now)
+		{
+			node.access = now;
+		}
+		hits.increment();
+		if (readBuffer.record(key.hashCode()) && writeLock.tryLock())
+		{
+			try
+			{
+				readBuffer.drainTo(sketch);
+			} finally
+			{
+				writeLock.unlock();
+			}
+		}
+		return value;
+	}
+
+	private V put(K key, V value)
+	{
+		writeLock.lock();
+		try
+		{
+			readBuffer.drainTo(sketch);
+			sketch.increment(key.hashCode());
+			drainCleared();
+			Node<K, V> existing = map.get(key);
+			if (existing != null)
+			{
+				V current = existing.value();
+				if (current != null)
+				{
+					return current; // 其他线程已经放入，保证缓存中只有一个实例
+				}
+				remove(existing);
+			}
+			if (size >= maximumSize)
+			{
+				Node<K, V> victim = sampleVictim();
+				if (sketch.frequency(key.hashCode()) <= sketch.frequency(victim.key.hashCode()))
+				{
+					rejections.increment();
+					return value;
+				}
+				remove(victim);
+				evictions.increment();
+			}
+			Node<K, V> node = new Node<K, V>(key, value, retention, cleared, weigher.applyAsLong(value));
+			node.access = ++clock;
+			if (size == nodes.length)
+			{
+				nodes = Arrays.copyOf(nodes, size * 2);
+			}
+			node.index = size;
+			nodes[size++] = node;
+			map.put(key, node);
+			weight.addAndGet(node.weight);
+			puts.increment();
+			return value;
+		} finally
+		{
+			writeLock.unlock();
+		}
+	}
+
+	private Node<K, V> sampleVictim()
+	{
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Node<K, V> victim = nodes[random.nextInt(size)];
+		for (int i = 1; i < SAMPLES; i++)
+		{
+			Node<K, V> candidate = nodes[random.nextInt(size)];
+			if (candidate.access < victim.access)
+			{
+				victim = candidate;
+			}
+		}
+		return victim;
+	}
+
+	/**
+	 * 从缓存中移除节点，调用方持有 writeLock
+	 */
+	private void remove(Node<K, V> node)
+	{
+		if (node.index < 0)
+		{
+			return; // 已移除
+		}
+		map.remove(node.key, node);
+		Node<K, V> last = nodes[--size];
+		nodes[node.index] = last;
+		last.index = node.index;
+		nodes[size] = null;
+		node.index = -1;
+		weight.addAndGet(-node.weight);
+	}
+
+	/**
+	 * 清理被 GC 回收的实例，调用方持有 writeLock
+	 */
+	@SuppressWarnings("unchecked")
+	private void drainCleared()
+	{
+		Reference<? extends V> ref;
+		while ((ref = cleared.poll()) != null)
+		{
+			Node<K, V> node = ((ValueReference<K, V>) ref).node();
+			if (node.index >= 0)
+			{
+				remove(node);
+				collected.increment();
+			}
+		}
+	}
+
+	/**
+	 * 清理被回收的实例后返回缓存的实例数
+	 */
+	public int size()
+	{
+		writeLock.lock();
+		try
+		{
+			drainCleared();
+			return size;
+		} finally
+		{
+			writeLock.unlock();
+		}
+	}
+
+	public double getHitRate()
+	{
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	/** 淘汰率：淘汰数 / 写入数 */
+	public double getEvictionRate()
+	{
+		long p = puts.sum();
+		return p == 0 ? 0 : (double) evictions.sum() / p;
+	}
+
+	public long getHits()
+	{
+		return hits.sum();
+	}
+
+	public long getMisses()
+	{
+		return misses.sum();
+	}
+
+	public long getEvictions()
+	{
+		return evictions.sum();
+	}
+
+	/** 因频率低于候选淘汰者而未进入缓存的实例数 */
+	public long getRejections()
+	{
+		return rejections.sum();
+	}
+
+	/** 被 GC 回收的实例数（仅 WEAK、SOFT） */
+	public long getCollected()
+	{
+		return collected.sum();
+	}
+
+	/** 缓存估算占用的字节数：实例数 × ENTRY_OVERHEAD + weigher 估算的实例大小 */
+	public long getEstimatedBytes()
+	{
+		return size() * ENTRY_OVERHEAD + weight.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("FlyweightFactory[%s, size=%d/%d, hitRate=%.3f, evictionRate=%.3f, rejections=%d, collected=%d, bytes=%d]",
+				retention, size(), maximumSize, getHitRate(), getEvictionRate(), getRejections(), getCollected(),
+				getEstimatedBytes());
+	}
+
+	/**
+	 * 缓存节点
+	 */
+	private static final class Node<K, V>
+	{
+		final K key;
+		final V strong;
+		final Reference<V> ref;
+		final long weight;
+		volatile long access;
+		int index;
+
+		Node(K key, V value, Retention retention, ReferenceQueue<V> queue, long weight)
+		{
+			this.key = key;
+			this.weight = weight;
+			switch (retention)
+			{
+			case WEAK:
+				this.strong = null;
+				this.ref = new WeakValue<K, V>(value, queue, this);
+				break;
+			case SOFT:
+				this.strong = null;
+				this.ref = new SoftValue<K, V>(value, queue, this);
+				break;
+			default:
+				this.strong = value;
+				this.ref = null;
+			}
+		}
+
+		V value()
+		{
+			return ref == null ? strong : ref.get();
+		}
+	}
+
+	private interface ValueReference<K, V>
+	{
+		Node<K, V> node();
+	}
+
+	private static final class WeakValue<K, V> extends WeakReference<V> implements ValueReference<K, V>
+	{
+		private final Node<K, V> node;
+
+		WeakValue(V value, ReferenceQueue<V> queue, Node<K, V> node)
+		{
+			super(value, queue);
+			this.node = node;
+		}
+
+		public Node<K, V> node()
+		{
+			return node;
+		}
+	}
+
+	private static final class SoftValue<K, V> extends SoftReference<V> implements ValueReference<K, V>
+	{
+		private final Node<K, V> node;
+
+		SoftValue(V value, ReferenceQueue<V> queue, Node<K, V> node)
+		{
+			super(value, queue);
+			this.node = node;
+		}
+
+		public Node<K, V> node()
+		{
+			return node;
+		}
+	}
+
+	/**
+	 * 命中记录缓冲
+	 * 	按线程分为 STRIPES 段，每段是容量为 SIZE 的有损缓冲：段内写满或并发写入冲突时丢弃记录，只影响频率估算的精度。
+	 * 	各段的写指针相隔 PAD 个 int（64 字节），不同段的写入不共享缓存行。
+	 */
+	static final class ReadBuffer
+	{
+		static final int STRIPES = Integer.highestOneBit(4 * Runtime.getRuntime().availableProcessors() - 1) << 1;
+		static final int SIZE = 16;
+		static final int PAD = 16;
+
+		private final AtomicIntegerArray hashes = new AtomicIntegerArray(STRIPES * SIZE);
+		private final AtomicIntegerArray writes = new AtomicIntegerArray(STRIPES * PAD);
+
+		/**
+		 * 记录一次命中
+		 * @return 当前线程所在的段已满，应当排空
+		 */
+		boolean record(int hash)
+		{
+			int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+			int n = writes.get(stripe * PAD);
+			if (n >= SIZE)
+			{
+				return true;
+			}
+			if (writes.compareAndSet(stripe * PAD, n, n + 1))
+			{
+				hashes.lazySet(stripe * SIZE + n, hash);
+			}
+			return n + 1 >= SIZE;
+		}
+
+		/**
+		 * 把记录的命中计入 sketch，调用方持有 writeLock
+		 */
+		void drainTo(FrequencySketch sketch)
+		{
+			for (int stripe = 0; stripe < STRIPES; stripe++)
+			{
+				int n = Math.min(writes.get(stripe * PAD), SIZE);
+				for (int i = 0; i < n; i++)
+				{
+					sketch.increment(hashes.get(stripe * SIZE + i));
+				}
+				if (n > 0)
+				{
+					writes.set(stripe * PAD, 0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Count-Min Sketch，4 行 4 位计数器，估算键最近的访问频率
+	 * 	每个计数器用 CAS 累加，CAS 失败时重新读取并再次检查是否已到 15，计数器不会溢出到相邻的计数器；
+	 * 	减半时逐个 long 用 CAS 替换，与并发的累加互不覆盖。
+	 */
+	static final class FrequencySketch
+	{
+		private static final int[] SEEDS = { 0x97cb3127, 0xb0f0a1c5, 0x61c88647, 0x7ed55d16 };
+		private final AtomicLongArray table; // 每个 long 保存 16 个 4 位计数器
+		private final int mask;
+		private final int sampleSize;
+		private final AtomicInteger additions = new AtomicInteger();
+
+		FrequencySketch(int maximumSize)
+		{
+			int counters = Integer.highestOneBit(Math.max(16, Math.min(maximumSize, 1 << 26)) * 4 - 1) << 1;
+			this.table = new AtomicLongArray(counters / 16);
+			this.mask = counters - 1;
+			this.sampleSize = 10 * Math.max(16, maximumSize);
+		}
+
+		void increment(int hash)
+		{
+			boolean added = false;
+			for (int i = 0; i < 4; i++)
+			{
+				added |= incrementAt(index(hash, i));
+			}
+			if (added && additions.incrementAndGet() == sampleSize)
+			{
+				reset();
+			}
+		}
+
+		/**
+		 * 计数器未到 15 时加一
+		 * @return 是否加了一
+		 */
+		private boolean incrementAt(int counter)
+		{
+			int slot = counter >>> 4;
+			int shift = (counter & 15) << 2;
+			while (true)
+			{
+				long current = table.get(slot);
+				if (((current >>> shift) & 0xfL) == 15)
+				{
+					return false;
+				}
+				if (table.compareAndSet(slot, current, current + (1L << shift)))
+				{
+					return true;
+				}
+			}
+		}
+
+		int frequency(int hash)
+		{
+			int min = 15;
+			for (int i = 0; i < 4; i++)
+			{
+				int counter = index(hash, i);
+				min = Math.min(min, (int) ((table.get(counter >>> 4) >>> ((counter & 15) << 2)) & 0xfL));
+			}
+			return min;
+		}
+
+		private int index(int hash, int row)
+		{
+			int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+			return (h ^ (h >>> 16)) & mask;
+		}
+
+		/**
+		 * 所有计数器减半，只由使 additions 到达 sampleSize 的线程调用
+		 */
+		private void reset()
+		{
+			for (int i = 0; i < table.length(); i++)
+			{
+				table.getAndUpdate(i, v -> (v >>> 1) & 0x7777777777777777L);
+			}
+			additions.addAndGet(-sampleSize); // 保留减半期间其他线程的累加
+		}
+	}
+}
+
+
+/**
+ * ProductB 的享元
+ * 	按（名称，型号）共享不可变的 ProductB，弱引用持有，最多 flyweight.productB.max（默认 1024）个。
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class ProductBFlyweights
+{
+	private static final FlyweightFactory<ProductBKey, ProductB> CACHE = new FlyweightFactory<ProductBKey, ProductB>(
+			k -> new ProductB(PartSymbols.intern(k.name), PartSymbols.intern(k.type)),
+			Integer.getInteger("flyweight.productB.max", 1024), FlyweightFactory.Retention.WEAK, p -> 24);
+
+	/** 每个线程复用的查找键，命中时不分配新的键 */
+	private static final ThreadLocal<ProductBKey> LOOKUP = ThreadLocal.withInitial(() -> new ProductBKey(null, null));
+
+	private ProductBFlyweights() {}
+
+	public static ProductB get(String name, String type)
+	{
+		ProductBKey lookup = LOOKUP.get();
+		lookup.name = name;
+		lookup.type = type;
+		ProductB product = CACHE.getIfPresent(lookup);
+		lookup.name = null;
+		lookup.type = null;
+		return product != null ? product : CACHE.get(new ProductBKey(name, type));
+	}
+
+	static FlyweightFactory<ProductBKey, ProductB> cache()
+	{
+		return CACHE;
+	}
+
+	/**
+	 * 享元的键
+	 * 	放入缓存的键创建后不再修改；只有线程本地的查找键会被改写后复用，它不会放入缓存。
+	 */
+	static final class ProductBKey
+	{
+		String name;
+		String type;
+
+		ProductBKey(String name, String type)
+		{
+			this.name = name;
+			this.type = type;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof ProductBKey))
+			{
+				return false;
+			}
+			ProductBKey other = (ProductBKey) o;
+			return Objects.equals(name, other.name) && Objects.equals(type, other.type);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * Objects.hashCode(name) + Objects.hashCode(type);
+		}
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class FlyweightFactoryTest
+{
+	public static void main(String[] args) throws InterruptedException
+	{
+		// ProductB 按（名称，型号）共享
+		ProductB x7 = ProductBFlyweights.get("宝马汽车", "X7");
+		x7.showProduct();
+		System.out.println(x7 == ProductBFlyweights.get("宝马汽车", "X7")); // 返回 true
+		System.out.println(x7 != ProductBFlyweights.get("宝马汽车", "X5")); // 返回 true
+
+		// 命中路径不分配内存
+		for (int i = 0; i < 200000; i++)
+		{
+			ProductBFlyweights.get("宝马汽车", "X7");
+		}
+		long allocated = BenchmarkRunner.allocatedBytes();
+		for (int i = 0; i < 100000; i++)
+		{
+			ProductBFlyweights.get("宝马汽车", "X7");
+		}
+		System.out.println(BenchmarkRunner.allocatedBytes() - allocated < 100000); // 返回 true，平均每次不到 1 字节
+
+		// IProduct 按键共享，容量有上限
+		FlyweightFactory<String, IProduct> products = new FlyweightFactory<String, IProduct>(k -> new Factory().createProduct(),
+				100, FlyweightFactory.Retention.STRONG, p -> 16);
+		System.out.println(products.get("car") == products.get("car")); // 返回 true
+
+		// 偏斜的访问分布：热点键留在缓存中，偶尔出现的冷键不会把它们挤出去
+		Random random = new Random(42);
+		for (int i = 0; i < 200000; i++)
+		{
+			int k = random.nextInt(10) < 8 ? random.nextInt(50) : random.nextInt(100000);
+			products.get("key-" + k);
+		}
+		System.out.println(products.size() <= 100); // 返回 true
+		System.out.println(products.getHitRate() > 0.75); // 返回 true
+		System.out.println(products);
+
+		// 弱引用：调用方不再持有时实例可以被回收
+		FlyweightFactory<Integer, byte[]> weak = new FlyweightFactory<Integer, byte[]>(k -> new byte[1024], 1000,
+				FlyweightFactory.Retention.WEAK, v -> v.length + 16);
+		for (int i = 0; i < 1000; i++)
+		{
+			weak.get(i);
+		}
+		System.gc();
+		Thread.sleep(100); // 等待被回收的引用入队
+		System.out.println(weak.size() < 1000 && weak.getCollected() > 0); // 返回 true
+		System.out.println(weak);
+
+		// 多个线程同时累加同一个键：计数器停在 15，不会溢出到相邻键的计数器
+		final FlyweightFactory.FrequencySketch sketch = new FlyweightFactory.FrequencySketch(1000);
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread(() -> {
+				for (int j = 0; j < 100000; j++)
+				{
+					sketch.increment(42);
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread t : threads)
+		{
+			t.join();
+		}
+		int others = 0;
+		for (int h = 0; h < 1000; h++)
+		{
+			others += h == 42 ? 0 : sketch.frequency(h);
+		}
+		System.out.println(sketch.frequency(42) == 15 && others == 0); // 返回 true
+	}
+}
@@ -0,0 +1,313 @@
+package com.cqupt.mauger.create;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cqupt.mauger.output.OutputSink;
+
+/**
+ * 列式产品批
+ * 	以列的形式保存大量 ProductB：名称列与型号列都做字典编码，每个产品只占两个 int，没有对象头和引用。
+ *
+ * 读取：
+ * 	1）cursor()：可复用的游标（享元视图），next() 移动到下一个产品，遍历不为每个元素分配对象。
+ * 	2）forEach(visitor)：回调方式遍历，同样不分配对象。
+ * 	3）get(index)：需要独立对象时才创建 ProductB。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class ProductBBatch
+{
+	private String[] dictionary = new String[16];
+	private final Map<String, Integer> codes = new HashMap<String, Integer>();
+	private int[] names;
+	private int[] types;
+	private int size;
+
+	public ProductBBatch()
+	{
+		this(16);
+	}
+
+	/**
+	 * @param capacity 初始容量
+	 */
+	public ProductBBatch(int capacity)
+	{
+		names = new int[Math.max(1, capacity)];
+		types = new int[Math.max(1, capacity)];
+	}
+
+	/**
+	 * 追加一个产品
+	 */
+	public void add(String name, String type)
+	{
+		addCodes(encode(name), encode(type));
+	}
+
+	/**
+	 * 追加 count 个相同的产品，部件只编码一次
+	 */
+	public void add(String name, String type, int count)
+	{
+		int nameCode = encode(name);
+		int typeCode = encode(type);
+		ensureCapacity(size + count);
+		Arrays.fill(names, size, size + count, nameCode);
+		Arrays.fill(types, size, size + count, typeCode);
+		size += count;
+	}
+
+	private void addCodes(int nameCode, int typeCode)
+	{
+		ensureCapacity(size + 1);
+		names[size] = nameCode;
+		types[size] = typeCode;
+		size++;
+	}
+
+	private int encode(String value)
+	{
+		Integer code = codes.get(value);
+		if (code == null)
+		{
+			code = codes.size();
+			if (code == dictionary.length)
+			{
+				dictionary = Arrays.copyOf(dictionary, code * 2);
+			}
+			dictionary[code] = PartSymbols.intern(value);
+			codes.put(dictionary[code], code);
+		}
+		return code;
+	}
+
+	private void ensureCapacity(int required)
+	{
+		if (required > names.length)
+		{
+			int capacity = Math.max(required, names.length + (names.length >> 1));
+			names = Arrays.copyOf(names, capacity);
+			types = Arrays.copyOf(types, capacity);
+		}
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/** 字典中不同部件值的个数 */
+	public int dictionarySize()
+	{
+		return codes.size();
+	}
+
+	public String getName(int index)
+	{
+		checkIndex(index);
+		return dictionary[names[index]];
+	}
+
+	public String getType(int index)
+	{
+		checkIndex(index);
+		return dictionary[types[index]];
+	}
+
+	/**
+	 * 取出第 index 个产品，会创建新的 ProductB
+	 */
+	public ProductB get(int index)
+	{
+		return new ProductB(getName(index), getType(index));
+	}
+
+	private void checkIndex(int index)
+	{
+		if (index < 0 || index >= size)
+		{
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+		}
+	}
+
+	/**
+	 * 返回一个新游标，游标本身可以通过 reset() 重复使用
+	 */
+	public Cursor cursor()
+	{
+		return new Cursor();
+	}
+
+	/**
+	 * 依次访问每个产品，不分配对象
+	 */
+	public void forEach(ProductBVisitor visitor)
+	{
+		String[] dict = dictionary;
+		for (int i = 0; i < size; i++)
+		{
+			visitor.visit(i, dict[names[i]], dict[types[i]]);
+		}
+	}
+
+	/**
+	 * 产品访问者
+	 */
+	public interface ProductBVisitor
+	{
+		void visit(int index, String name, String type);
+	}
+
+	/**
+	 * 游标，指向批中的一个产品
+	 */
+	public final class Cursor
+	{
+		private int index = -1;
+
+		/**
+		 * 移动到下一个产品
+		 * @return 没有更多产品时返回 false
+		 */
+		public boolean next()
+		{
+			return ++index < size;
+		}
+
+		public void reset()
+		{
+			index = -1;
+		}
+
+		public int index()
+		{
+			return index;
+		}
+
+		public String getName()
+		{
+			return dictionary[names[index]];
+		}
+
+		public String getType()
+		{
+			return dictionary[types[index]];
+		}
+
+		public void showProduct()
+		{
+			OutputSink.get().println("名称：", getName());
+			OutputSink.get().println("型号：", getType());
+		}
+	}
+}
+
+
+/**
+ * 批量建造者
+ * 	与 ConcreateBuilder 相同的部件设置方式，append() 把当前部件写入列式产品批而不创建 ProductB。
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class BatchBuilder extends Builder
+{
+	private final ProductBBatch batch;
+	private String name;
+	private String type;
+
+	public BatchBuilder(ProductBBatch batch)
+	{
+		this.batch = batch;
+	}
+
+	@Override
+	public void setPart(String name, String type)
+	{
+		this.name = name;
+		this.type = type;
+	}
+
+	@Override
+	public ProductB getProduct()
+	{
+		return new ProductB(PartSymbols.intern(name), PartSymbols.intern(type));
+	}
+
+	@Override
+	public void reset()
+	{
+		name = null;
+		type = null;
+	}
+
+	/**
+	 * 把当前部件追加 count 次到产品批
+	 */
+	public void append(int count)
+	{
+		batch.add(name, type, count);
+	}
+
+	public ProductBBatch getBatch()
+	{
+		return batch;
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class ProductBBatchTest
+{
+	public static void main(String[] args)
+	{
+		Director director = new Director();
+		ProductBBatch batch = director.getProductBBatch(2, 1);
+		ProductBBatch.Cursor cursor = batch.cursor();
+		while (cursor.next())
+		{
+			cursor.showProduct();
+		}
+		System.out.println(batch.size() == 3 && batch.dictionarySize() == 4); // 返回 true
+
+		// 内存占用对比：一百万个产品
+		int n = 1000000;
+		long before = usedMemory();
+		List<ProductB> list = new ArrayList<ProductB>(n);
+		for (int i = 0; i < n; i++)
+		{
+			list.add((i & 1) == 0 ? director.getAProductB() : director.getBProductB());
+		}
+		long listBytes = usedMemory() - before;
+
+		before = usedMemory();
+		ProductBBatch big = director.getProductBBatch(n / 2, n / 2);
+		long batchBytes = usedMemory() - before;
+
+		System.out.println(String.format("List<ProductB>：%.1f 字节/产品", (double) listBytes / n));
+		System.out.println(String.format("ProductBBatch：%.1f 字节/产品", (double) batchBytes / n));
+		System.out.println(list.size() == big.size()); // 返回 true
+	}
+
+	private static long usedMemory()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+		{
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -1,5 +1,7 @@
 package com.cqupt.mauger.create;
 
+import com.cqupt.mauger.output.OutputSink;
+
 
 /**
  * 原型模式 Prototype Pattern
@@ -57,18 +59,31 @@ package com.cqupt.mauger.create;
  */
 public class Prototype implements Cloneable
 {
+	private static final CreationProbe PROBE = CreationMetrics.probe("Prototype.clone");
+	
 	public Prototype clone()
 	{
+		long begin = PROBE.begin();
 		Prototype prototype = null;
 		try
 		{
 			prototype = (Prototype) super.clone();
 		} catch (CloneNotSupportedException e)
 		{
-			e.printStackTrace();
+			throw new InternalError(e); // 已实现 Cloneable，不会发生
 		}
+		PROBE.end(begin);
 		return prototype;
 	}
+	
+	/**
+	 * 深拷贝
+	 * 	数组、容器、引用对象都会被拷贝，详见 DeepCopier。
+	 */
+	public Prototype deepClone()
+	{
+		return DeepCopier.copy(this);
+	}
 }
 
 
@@ -82,7 +97,7 @@ class ConcreatePrototype extends Prototype
 {
 	public void show()
 	{
-		System.out.println("Prototype Implemention Class.");
+		OutputSink.get().println("Prototype Implemention Class.");
 	}
 }
 
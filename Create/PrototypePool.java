@@ -0,0 +1,303 @@
+package com.cqupt.mauger.create;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 原型池
+ * 	按键保存预先克隆好的原型实例，调用方用完后可以归还，重置后再次借出，减少高频克隆产生的垃圾。
+ *
+ * 实现：
+ * 	1）每个键有一个线程本地缓存（最多 localCapacity 个）和两个共享的无锁队列（各最多 capacity 个）：
+ * 	       预热队列存放后台克隆的实例，回收队列存放线程本地缓存放不下的归还实例。
+ * 	2）借出顺序：线程本地缓存、回收队列、预热队列，都没有时在调用线程上克隆（未命中）。
+ * 	3）预热队列低于 lowWatermark 时，由后台线程异步克隆补充到 capacity，注册原型时同样在后台预热。
+ * 	4）归还的实例先执行重置钩子，池满时丢弃。
+ *
+ * 指标：
+ * 	命中率、未命中次数、后台克隆次数、回收次数、节省的分配次数（由归还实例满足的借出次数）。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class PrototypePool<K, P extends Prototype> implements AutoCloseable
+{
+	private final int capacity;
+	private final int lowWatermark;
+	private final int localCapacity;
+	private final ConcurrentMap<K, Slot> slots = new ConcurrentHashMap<K, Slot>();
+	private final ExecutorService refiller;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder backgroundClones = new LongAdder();
+	private final LongAdder recycled = new LongAdder();
+	private final LongAdder reused = new LongAdder();
+
+	/**
+	 * 预热队列与回收队列容量各 64，预热队列低于 16 时补充，线程本地缓存 8 个
+	 */
+	public PrototypePool()
+	{
+		this(64, 16, 8);
+	}
+
+	public PrototypePool(int capacity, int lowWatermark, int localCapacity)
+	{
+		if (capacity <= 0 || lowWatermark < 0 || lowWatermark > capacity || localCapacity < 0)
+		{
+			throw new IllegalArgumentException("原型池容量配置错误");
+		}
+		this.capacity = capacity;
+		this.lowWatermark = lowWatermark;
+		this.localCapacity = localCapacity;
+		this.refiller = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "prototype-pool-refiller");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * 注册原型，使用 clone() 复制，没有重置钩子
+	 */
+	@SuppressWarnings("unchecked")
+	public void register(K key, P prototype)
+	{
+		register(key, prototype, p -> (P) p.clone(), null);
+	}
+
+	/**
+	 * 注册原型并在后台预热
+	 * @param key 键
+	 * @param prototype 原型
+	 * @param cloner 复制方式，例如 p -> (P) p.deepClone()
+	 * @param resetHook 归还时执行的重置钩子，可以为 null
+	 */
+	public void register(K key, P prototype, Function<? super P, ? extends P> cloner, Consumer<? super P> resetHook)
+	{
+		Slot slot = new Slot(prototype, cloner, resetHook);
+		if (slots.putIfAbsent(key, slot) != null)
+		{
+			throw new IllegalArgumentException("键已注册：" + key);
+		}
+		slot.scheduleRefill();
+	}
+
+	/**
+	 * 借出一个实例
+	 * @param key 键
+	 * @return 实例
+	 */
+	public P acquire(K key)
+	{
+		Slot slot = slot(key);
+		P instance = slot.local.get().pollLast();
+		if (instance == null && (instance = slot.returned.poll()) != null)
+		{
+			slot.returnedSize.decrementAndGet();
+		}
+		if (instance != null)
+		{
+			hits.increment();
+			reused.increment();
+			return instance;
+		}
+		instance = slot.fresh.poll();
+		if (instance != null)
+		{
+			if (slot.freshSize.decrementAndGet() < lowWatermark)
+			{
+				slot.scheduleRefill();
+			}
+			hits.increment();
+			return instance;
+		}
+		misses.increment();
+		slot.scheduleRefill();
+		return slot.cloner.apply(slot.prototype);
+	}
+
+	/**
+	 * 归还实例，执行重置钩子后放回池中，池满时丢弃
+	 * @param key 键
+	 * @param instance 由 acquire 借出的实例
+	 */
+	public void release(K key, P instance)
+	{
+		Slot slot = slot(key);
+		if (slot.resetHook != null)
+		{
+			slot.resetHook.accept(instance);
+		}
+		ArrayDeque<P> local = slot.local.get();
+		if (local.size() < localCapacity)
+		{
+			local.addLast(instance);
+			recycled.increment();
+		}
+		else if (slot.returnedSize.incrementAndGet() <= capacity)
+		{
+			slot.returned.offer(instance);
+			recycled.increment();
+		}
+		else
+		{
+			slot.returnedSize.decrementAndGet();
+		}
+	}
+
+	private Slot slot(K key)
+	{
+		Slot slot = slots.get(key);
+		if (slot == null)
+		{
+			throw new IllegalArgumentException("键未注册：" + key);
+		}
+		return slot;
+	}
+
+	/** 命中率，没有借出记录时为 0 */
+	public double getHitRate()
+	{
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	public long getHits()
+	{
+		return hits.sum();
+	}
+
+	public long getMisses()
+	{
+		return misses.sum();
+	}
+
+	/** 后台线程克隆的实例数 */
+	public long getBackgroundClones()
+	{
+		return backgroundClones.sum();
+	}
+
+	/** 被接收回池中的归还次数 */
+	public long getRecycled()
+	{
+		return recycled.sum();
+	}
+
+	/** 节省的分配次数，即由归还实例满足的借出次数 */
+	public long getAllocationsSaved()
+	{
+		return reused.sum();
+	}
+
+	@Override
+	public void close()
+	{
+		refiller.shutdownNow();
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("PrototypePool[hitRate=%.3f, hits=%d, misses=%d, backgroundClones=%d, recycled=%d, allocationsSaved=%d]",
+				getHitRate(), getHits(), getMisses(), getBackgroundClones(), getRecycled(), getAllocationsSaved());
+	}
+
+	/**
+	 * 某个键的原型与实例缓存
+	 */
+	private final class Slot
+	{
+		final P prototype;
+		final Function<? super P, ? extends P> cloner;
+		final Consumer<? super P> resetHook;
+		final Queue<P> fresh = new ConcurrentLinkedQueue<P>();
+		final AtomicInteger freshSize = new AtomicInteger();
+		final Queue<P> returned = new ConcurrentLinkedQueue<P>();
+		final AtomicInteger returnedSize = new AtomicInteger();
+		final AtomicBoolean refilling = new AtomicBoolean();
+		final ThreadLocal<ArrayDeque<P>> local = ThreadLocal.withInitial(ArrayDeque::new);
+
+		Slot(P prototype, Function<? super P, ? extends P> cloner, Consumer<? super P> resetHook)
+		{
+			this.prototype = prototype;
+			this.cloner = cloner;
+			this.resetHook = resetHook;
+		}
+
+		void scheduleRefill()
+		{
+			if (refilling.compareAndSet(false, true))
+			{
+				try
+				{
+					refiller.execute(this::refill);
+				} catch (RuntimeException e)
+				{
+					refilling.set(false); // 已关闭
+				}
+			}
+		}
+
+		private void refill()
+		{
+			try
+			{
+				while (freshSize.get() < capacity)
+				{
+					P instance = cloner.apply(prototype);
+					backgroundClones.increment();
+					freshSize.incrementAndGet();
+					fresh.offer(instance);
+				}
+			} finally
+			{
+				refilling.set(false);
+			}
+		}
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class PrototypePoolTest
+{
+	public static void main(String[] args) throws InterruptedException
+	{
+		try (PrototypePool<String, ConcreatePrototype> pool = new PrototypePool<String, ConcreatePrototype>(16, 4, 4))
+		{
+			pool.register("cp", new ConcreatePrototype());
+			TimeUnit.MILLISECONDS.sleep(100); // 等待后台预热
+
+			for (int i = 0; i < 5; i++)
+			{
+				ConcreatePrototype clonecp = pool.acquire("cp");
+				clonecp.show();
+				pool.release("cp", clonecp);
+			}
+			System.out.println(pool.getMisses() == 0); // 返回 true
+			System.out.println(pool.getAllocationsSaved() == 4); // 返回 true，只用了一个预热实例，其余 4 次为复用
+			System.out.println(pool);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package com.cqupt.mauger.create;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.cqupt.mauger.benchmark.BenchmarkRunner;
+
+/**
+ * 登记式单例基准测试
+ *
+ * 说明：
+ * 	对比 RegSingleton（ConcurrentHashMap + computeIfAbsent + MethodHandle）与原来的实现（HashMap + Class.newInstance()）。
+ * 	1）稳态：登记薄已命中，比较 1、4、16、64 个线程下 getInstance(String) 的吞吐量与延迟。
+ * 	2）首次访问竞争：多个线程同时登记同一个类名，统计构造方法被调用的次数，原实现可能大于 1。
+ *
+ * 运行：
+ * 	java com.cqupt.mauger.create.RegSingletonBenchmark
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public class RegSingletonBenchmark
+{
+	private static final int RACE_TRIALS = 200;
+
+	public static void main(String[] args) throws Exception
+	{
+		final String name = RegSubSingleton.class.getName();
+		final LegacyRegistry legacy = new LegacyRegistry();
+		legacy.getInstance(name);
+		RegSingleton.getInstance(name);
+
+		BenchmarkRunner runner = new BenchmarkRunner();
+		BenchmarkRunner.printHeader();
+		runner.runAll("steady.legacy", () -> legacy.getInstance(name));
+		runner.runAll("steady.RegSingleton", () -> RegSingleton.getInstance(name));
+
+		System.out.println(String.format("%-36s %7s %12s", "Benchmark", "Threads", "dup/trials"));
+		for (int threads : BenchmarkRunner.THREAD_COUNTS)
+		{
+			int duplicated = 0;
+			for (int trial = 0; trial < RACE_TRIALS; trial++)
+			{
+				RegSubSingleton.CREATED.set(0);
+				race(new LegacyRegistry(), name, threads);
+				if (RegSubSingleton.CREATED.get() > 1)
+				{
+					duplicated++;
+				}
+			}
+			System.out.println(String.format("%-36s %7d %8d/%d", "race.legacy", threads, duplicated, RACE_TRIALS));
+		}
+	}
+
+	private static void race(final LegacyRegistry registry, final String name, int threads) throws InterruptedException
+	{
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; i++)
+		{
+			workers[i] = new Thread(() -> {
+				BenchmarkRunner.awaitQuietly(start);
+				registry.getInstance(name);
+			});
+			workers[i].start();
+		}
+		start.countDown();
+		for (Thread t : workers)
+		{
+			t.join();
+		}
+	}
+
+	/**
+	 * 用于测试的 RegSingleton 子类，记录构造方法被调用的次数
+	 */
+	static class RegSubSingleton extends RegSingleton
+	{
+		static final AtomicInteger CREATED = new AtomicInteger();
+
+		RegSubSingleton()
+		{
+			CREATED.incrementAndGet();
+		}
+	}
+
+	/**
+	 * 原来的登记薄实现，改为实例字段以便每一轮竞争使用新的登记薄
+	 */
+	static class LegacyRegistry
+	{
+		private Map<String, RegSingleton> regMap = new HashMap<String, RegSingleton>();
+
+		@SuppressWarnings("deprecation")
+		public RegSingleton getInstance(String className)
+		{
+			if (regMap.get(className) == null)
+			{
+				try
+				{
+					regMap.put(className, (RegSingleton) Class.forName(className).newInstance());
+				} catch (Exception e)
+				{
+					e.printStackTrace();
+				}
+			}
+			return regMap.get(className);
+		}
+	}
+}
@@ -1,8 +1,15 @@
 package com.cqupt.mauger.create;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 单例模式 Singleton Pattern
@@ -47,10 +54,12 @@ import java.util.Map;
 public class Singleton
 {
 	private static Singleton instance = new Singleton();
+	private static final CreationProbe PROBE = CreationMetrics.probe("Singleton.getInstance");
 	private Singleton() {}
 	
 	public static Singleton getInstance()
 	{
+		PROBE.end(PROBE.begin());
 		return instance;
 	}
 }
@@ -65,14 +74,17 @@ public class Singleton
 class Singleton0
 {
 	private static Singleton0 instance;
+	private static final CreationProbe PROBE = CreationMetrics.probe("Singleton0.getInstance");
 	private Singleton0() {}
 	
 	public static Singleton0 getInstance()
 	{
+		long begin = PROBE.begin();
 		if (instance == null)
 		{
 			instance = new Singleton0();
 		}
+		PROBE.end(begin);
 		return instance;
 	}
 }
@@ -87,15 +99,27 @@ class Singleton0
 class Singleton1
 {
 	private static Singleton1 instance;
+	private static final CreationProbe PROBE = CreationMetrics.probe("Singleton1.getInstance");
 	private Singleton1() {}
 	
-	public static synchronized Singleton1 getInstance()
+	/**
+	 * 与 static synchronized 方法等价，改为同步块是为了记录进入同步块前等待锁的时间
+	 */
+	public static Singleton1 getInstance()
 	{
-		if (instance == null)
+		long requested = PROBE.lockRequested();
+		Singleton1 result;
+		synchronized (Singleton1.class)
 		{
-			instance = new Singleton1();
+			PROBE.lockAcquired(requested);
+			if (instance == null)
+			{
+				instance = new Singleton1();
+			}
+			result = instance;
 		}
-		return instance;
+		PROBE.end(requested); // 退出同步块后再记录，不延长临界区
+		return result;
 	}
 }
 
@@ -112,10 +136,12 @@ class Singleton2
 	{
 		private static final Singleton2 INSTANCE = new Singleton2();
 	}
+	private static final CreationProbe PROBE = CreationMetrics.probe("Singleton2.getInstance");
 	private Singleton2() {}
 	
 	public static Singleton2 getInstance()
 	{
+		PROBE.end(PROBE.begin());
 		return SingletonHolder.INSTANCE;
 	}
 }
@@ -153,6 +179,9 @@ class DBConnection {}
 
 /**
  * 声明一个枚举，用于获取数据库连接
+ * 	枚举单例持有一个连接池，getConnection() 从池中借出连接，使用完毕后调用 releaseConnection() 归还。
+ * 	连接池大小与超时时间可通过系统属性配置：
+ * 		datasource.pool.min（默认 1）、datasource.pool.max（默认 CPU 核数 * 2）、datasource.pool.timeoutMillis（默认 3000）
  * @author Mauger
  * @date 2018年4月19日  
  * @version 1.0
@@ -160,16 +189,42 @@ class DBConnection {}
 enum DataSourceEnum
 {
     DATASOURCE;
-    private DBConnection conn;
+    private ConnectionPool pool;
     
     private DataSourceEnum()
     {
-        conn = new DBConnection();
+        int min = Integer.getInteger("datasource.pool.min", 1);
+        int max = Integer.getInteger("datasource.pool.max", Math.max(min, Runtime.getRuntime().availableProcessors() * 2));
+        long timeout = Long.getLong("datasource.pool.timeoutMillis", 3000L);
+        pool = new ConnectionPool(DBConnection::new, min, max, timeout, TimeUnit.MILLISECONDS);
     }
     
+    /**
+     * 借出一个连接，等待超时或被中断时抛出 IllegalStateException
+     */
     public DBConnection getConnection()
     {
-        return conn;
+        try
+        {
+            return pool.borrow();
+        } catch (TimeoutException e)
+        {
+            throw new IllegalStateException(e.getMessage(), e);
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("获取数据库连接时被中断", e);
+        }
+    }
+    
+    public void releaseConnection(DBConnection conn)
+    {
+        pool.release(conn);
+    }
+    
+    public ConnectionPool getPool()
+    {
+        return pool;
     }
 }
 
@@ -185,8 +240,11 @@ class enumTest
 	public static void main(String[] args)
 	{
 		DBConnection conn1 = DataSourceEnum.DATASOURCE.getConnection();
+		DataSourceEnum.DATASOURCE.releaseConnection(conn1);
 		DBConnection conn2 = DataSourceEnum.DATASOURCE.getConnection();
-		System.out.println(conn1 == conn2); // 返回 true
+		System.out.println(conn1 == conn2); // 返回 true，同一线程归还后再借出的是同一个连接
+		DataSourceEnum.DATASOURCE.releaseConnection(conn2);
+		System.out.println(DataSourceEnum.DATASOURCE.getPool() == DataSourceEnum.DATASOURCE.getPool()); // 返回 true
 	}
 }
 
@@ -203,20 +261,25 @@ class enumTest
 class Singleton4
 {
 	private static Singleton4 instance;
+	private static final CreationProbe PROBE = CreationMetrics.probe("Singleton4.getInstance");
 	private Singleton4() {}
 	
 	public static Singleton4 getInstance()
 	{
+		long begin = PROBE.begin();
 		if (instance == null)
 		{
+			long requested = PROBE.lockRequested();
 			synchronized(Singleton4.class)
 			{
+				PROBE.lockAcquired(requested);
 				if (instance == null)
 				{
 					instance = new Singleton4();
 				}
 			}
 		}
+		PROBE.end(begin);
 		return instance;
 	}
 }
@@ -235,20 +298,25 @@ class Singleton4
 class Singleton5
 {
 	private static volatile Singleton5 instance;
+	private static final CreationProbe PROBE = CreationMetrics.probe("Singleton5.getInstance");
 	private Singleton5() {}
 	
 	public static Singleton5 getInstance()
 	{
+		long begin = PROBE.begin();
 		if (instance == null)
 		{
+			long requested = PROBE.lockRequested();
 			synchronized(Singleton5.class)
 			{
+				PROBE.lockAcquired(requested);
 				if (instance == null)
 				{
 					instance = new Singleton5();
 				}
 			}
 		}
+		PROBE.end(begin);
 		return instance;
 	}
 }
@@ -270,11 +338,13 @@ class RegisterSingleton
 	{
 		map.put(RegisterSingleton.class.getName(), new RegisterSingleton());
 	}
+	private static final CreationProbe PROBE = CreationMetrics.probe("RegisterSingleton.getInstance");
 	protected RegisterSingleton() {}
 	
 	@SuppressWarnings("unchecked")
 	public static <T>T getInstance(T t)
 	{
+		PROBE.end(PROBE.begin());
 		String className = t.getClass().getName();
 		if (RegisterSingleton.class.getName() == null)
 		{
@@ -296,38 +366,63 @@ class RegisterSingleton
 
 /**
  * 登记式单例
+ * 	登记薄使用 ConcurrentHashMap，命中时只有一次哈希查找；未命中时通过 computeIfAbsent 保证每个类名只创建一次实例。
+ * 	创建实例不使用 Class.newInstance()，而是解析一次无参构造方法的 MethodHandle 并调用。
+ * 	类名无效（找不到类、不是 RegSingleton 子类或没有无参构造方法）时，登记薄把该类名登记为 DEFAULT，
+ * 	之后的查找直接命中，不再重复反射解析，错误也只输出一次。
  * @author Mauger
  * @date 2018年4月19日  
  * @version 1.0
  */
 class RegSingleton
 {
-	private static Map<String, RegSingleton> regMap = new HashMap<String, RegSingleton>();
+	private static final ConcurrentMap<String, RegSingleton> regMap = new ConcurrentHashMap<String, RegSingleton>();
+	private static final RegSingleton DEFAULT = new RegSingleton();
 	static
 	{
-		RegSingleton instance = new RegSingleton();
-		regMap.put(instance.getClass().getName(), instance);
+		regMap.put(DEFAULT.getClass().getName(), DEFAULT);
 	}
+	private static final CreationProbe PROBE = CreationMetrics.probe("RegSingleton.getInstance");
 	protected RegSingleton() {}
 	
 	public static RegSingleton getInstance(String className)
 	{
+		long begin = PROBE.begin();
 		if (className == null)
 		{
-			className = RegSingleton.class.getName();
+			PROBE.end(begin);
+			return DEFAULT;
 		}
-		if (regMap.get(className) == null)
+		RegSingleton instance = regMap.get(className);
+		if (instance == null)
 		{
-			try
-			{
-				regMap.put(className, (RegSingleton) Class.forName(className).newInstance());
-			} catch (Exception e)
-			{
-				className = RegisterSingleton.class.getName();
-				e.printStackTrace();
-			}
+			instance = regMap.computeIfAbsent(className, RegSingleton::create);
+		}
+		PROBE.end(begin);
+		return instance;
+	}
+	
+	/**
+	 * 解析类名对应的无参构造方法，并创建实例
+	 * @param className RegSingleton 子类的全限定名
+	 * @return 新实例；类名无效时返回 DEFAULT，由 computeIfAbsent 登记，避免下次再解析
+	 */
+	private static RegSingleton create(String className)
+	{
+		try
+		{
+			Class<? extends RegSingleton> clazz = Class.forName(className).asSubclass(RegSingleton.class);
+			MethodHandle constructor = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup())
+					.findConstructor(clazz, MethodType.methodType(void.class));
+			return (RegSingleton) constructor.invoke();
+		} catch (Error e)
+		{
+			throw e;
+		} catch (Throwable e)
+		{
+			new IllegalArgumentException("无法登记单例：" + className, e).printStackTrace();
+			return DEFAULT;
 		}
-		return regMap.get(className);
 	}
 	
 	public String getStr() 
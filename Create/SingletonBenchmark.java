@@ -0,0 +1,226 @@
+package com.cqupt.mauger.create;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import com.cqupt.mauger.benchmark.BenchmarkRunner;
+
+/**
+ * 单例模式基准测试
+ *
+ * 说明：
+ * 	比较 Singleton、Singleton0~Singleton5、RegSingleton 在 1、4、16、64 个线程并发调用 getInstance() 时的开销。
+ * 	1）稳态（steady）：单例已经初始化，测量吞吐量、p50/p99 延迟和每次操作分配的字节数。
+ * 	       默认关闭 CreationMetrics，结果与未埋点的单例可比；启动参数 -Dcreation.metrics=true 时测量带埋点的开销，
+ * 	       此时每行名称带 +metrics 后缀。
+ * 	2）冷启动（cold）：每一轮用一个新的类加载器重新加载单例类，所有线程同时首次调用 getInstance()，
+ * 	       测量首次访问（含类初始化、加锁竞争）的延迟，以及这一轮分配的字节数。
+ * 	       冷启动时关闭 CreationMetrics（-Dcreation.metrics=false），并在计时前初始化新类加载器中的 CreationMetrics，
+ * 	       结果不含埋点与 MBean 注册的开销，每一轮也不会留下导出线程。
+ *
+ * 运行：
+ * 	java [-Dcreation.metrics=true] com.cqupt.mauger.create.SingletonBenchmark [steady|cold]
+ *
+ * 注意事项：
+ * 	Singleton0 不是线程安全的，冷启动时可能创建多个实例，这里只比较其开销。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public class SingletonBenchmark
+{
+	private static final String[] TARGETS = {
+		"Singleton", "Singleton0", "Singleton1", "Singleton2", "Singleton3", "Singleton4", "Singleton5", "RegSingleton"
+	};
+
+	private static final int COLD_TRIALS = 50;
+
+	public static void main(String[] args) throws Exception
+	{
+		String mode = args.length > 0 ? args[0] : "all";
+		// CreationMetrics 在第一次使用单例时才初始化，此前设置的属性对它生效
+		if (System.getProperty("creation.metrics") == null)
+		{
+			System.setProperty("creation.metrics", "false");
+		}
+		if (!"cold".equals(mode))
+		{
+			steady();
+		}
+		if (!"steady".equals(mode))
+		{
+			cold();
+		}
+	}
+
+	/**
+	 * 稳态访问
+	 */
+	static void steady()
+	{
+		BenchmarkRunner runner = new BenchmarkRunner();
+		final String regName = RegSingleton.class.getName();
+		String suffix = CreationMetrics.ENABLED ? "+metrics" : "";
+		BenchmarkRunner.printHeader();
+		for (String target : TARGETS)
+		{
+			Supplier<?> op;
+			switch (target)
+			{
+				case "Singleton":    op = Singleton::getInstance; break;
+				case "Singleton0":   op = Singleton0::getInstance; break;
+				case "Singleton1":   op = Singleton1::getInstance; break;
+				case "Singleton2":   op = Singleton2::getInstance; break;
+				case "Singleton3":   op = () -> Singleton3.INSTANCE; break;
+				case "Singleton4":   op = Singleton4::getInstance; break;
+				case "Singleton5":   op = Singleton5::getInstance; break;
+				default:             op = () -> RegSingleton.getInstance(regName); break;
+			}
+			runner.runAll("steady." + target + suffix, op);
+		}
+	}
+
+	/**
+	 * 冷启动访问
+	 */
+	static void cold() throws Exception
+	{
+		URL codeSource = SingletonBenchmark.class.getProtectionDomain().getCodeSource().getLocation();
+		String pkg = SingletonBenchmark.class.getPackage().getName();
+		// 每个新类加载器都会重新初始化 CreationMetrics 并读取这个属性
+		String metrics = System.getProperty("creation.metrics");
+		System.setProperty("creation.metrics", "false");
+		try
+		{
+			coldAll(codeSource, pkg);
+		} finally
+		{
+			if (metrics == null)
+			{
+				System.clearProperty("creation.metrics");
+			}
+			else
+			{
+				System.setProperty("creation.metrics", metrics);
+			}
+		}
+	}
+
+	private static void coldAll(URL codeSource, String pkg) throws Exception
+	{
+		System.out.println(String.format("%-36s %7s %12s %12s %12s", "Benchmark", "Threads", "p50 ns", "p99 ns", "B/trial"));
+		for (String target : TARGETS)
+		{
+			for (int threads : BenchmarkRunner.THREAD_COUNTS)
+			{
+				long[] latencies = new long[COLD_TRIALS * threads];
+				long bytes = 0;
+				for (int trial = 0; trial < COLD_TRIALS; trial++)
+				{
+					try (URLClassLoader loader = new URLClassLoader(new URL[] { codeSource }, ClassLoader.getPlatformClassLoader()))
+					{
+						Class.forName(pkg + ".CreationMetrics", true, loader);
+						Class<?> clazz = Class.forName(pkg + "." + target, false, loader);
+						bytes += coldTrial(clazz, threads, latencies, trial * threads);
+					}
+				}
+				Arrays.sort(latencies);
+				System.out.println(String.format("%-36s %7d %12d %12d %12d", "cold." + target, threads,
+						BenchmarkRunner.percentile(latencies, 0.50), BenchmarkRunner.percentile(latencies, 0.99),
+						bytes / COLD_TRIALS));
+			}
+		}
+	}
+
+	/**
+	 * 一轮冷启动：所有线程在同一时刻首次访问单例
+	 * @return 本轮所有线程分配的字节数
+	 */
+	private static long coldTrial(Class<?> clazz, int threads, final long[] latencies, final int offset) throws Exception
+	{
+		final Accessor accessor = Accessor.of(clazz);
+		final CountDownLatch ready = new CountDownLatch(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		final long[] allocated = new long[threads];
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; i++)
+		{
+			final int index = i;
+			workers[i] = new Thread(() -> {
+				ready.countDown();
+				try
+				{
+					start.await();
+				} catch (InterruptedException e)
+				{
+					return;
+				}
+				long bytes = BenchmarkRunner.allocatedBytes();
+				long t0 = System.nanoTime();
+				accessor.get();
+				latencies[offset + index] = System.nanoTime() - t0;
+				allocated[index] = BenchmarkRunner.allocatedBytes() - bytes;
+			});
+			workers[i].start();
+		}
+		ready.await();
+		start.countDown();
+		long total = 0;
+		for (int i = 0; i < threads; i++)
+		{
+			workers[i].join();
+			total += allocated[i];
+		}
+		return total;
+	}
+
+	/**
+	 * 访问新类加载器中的单例，解析 getInstance() 的过程不计入首次访问的耗时
+	 */
+	private static final class Accessor
+	{
+		private final Method method;
+		private final Object[] args;
+
+		private Accessor(Method method, Object[] args)
+		{
+			this.method = method;
+			this.args = args;
+		}
+
+		static Accessor of(Class<?> clazz) throws Exception
+		{
+			if (clazz.isEnum())
+			{
+				Method valueOf = clazz.getMethod("valueOf", String.class);
+				valueOf.setAccessible(true);
+				return new Accessor(valueOf, new Object[] { "INSTANCE" });
+			}
+			if (clazz.getSimpleName().equals("RegSingleton"))
+			{
+				Method getInstance = clazz.getDeclaredMethod("getInstance", String.class);
+				getInstance.setAccessible(true);
+				return new Accessor(getInstance, new Object[] { clazz.getName() });
+			}
+			Method getInstance = clazz.getDeclaredMethod("getInstance");
+			getInstance.setAccessible(true);
+			return new Accessor(getInstance, new Object[0]);
+		}
+
+		Object get()
+		{
+			try
+			{
+				return method.invoke(null, args);
+			} catch (ReflectiveOperationException e)
+			{
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
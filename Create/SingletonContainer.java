@@ -0,0 +1,495 @@
+package com.cqupt.mauger.create;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单例容器
+ * 	单例声明自己依赖的其他单例，启动时互不依赖的立即加载单例并行初始化，其余单例在第一次访问时初始化。
+ *
+ * 实现：
+ * 	1）register 声明单例的名称、是否立即加载、创建方法以及依赖；start() 检查依赖是否存在、是否有环。
+ * 	2）立即加载的单例连同它们的依赖按依赖关系组成任务图：每个单例在依赖全部完成后提交到线程池，
+ * 	       互不依赖的单例同时初始化。
+ * 	3）访问：实例保存在 volatile 字段中，初始化完成后 get() 只有一次 volatile 读，不加锁；
+ * 	       尚未初始化时与双重检查锁相同，在单例自己的锁上初始化一次。
+ * 	       get() 只能在 start() 之后调用：holders 只在 start() 之前（持有容器的锁）修改，
+ * 	       start() 写入 volatile 的 started 后不再修改，读到 started 为 true 的线程不加锁读取 holders 也是安全的。
+ * 	4）创建方法只能通过 get() 取得声明过的依赖，未声明的依赖会抛出 IllegalStateException，保证任务图与实际依赖一致。
+ * 	5）start() 返回启动报告：每个单例的开始时间、耗时、执行线程，以及决定启动总耗时的关键路径。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class SingletonContainer implements AutoCloseable
+{
+	private final Map<String, Holder> holders = new LinkedHashMap<String, Holder>();
+	private final ExecutorService pool;
+	private final ThreadLocal<Holder> creating = new ThreadLocal<Holder>();
+	private volatile boolean started;
+	private long bootNanos;
+
+	/**
+	 * 使用与处理器数量相同的初始化线程
+	 */
+	public SingletonContainer()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads 启动时并行初始化的线程数
+	 */
+	public SingletonContainer(int threads)
+	{
+		final AtomicInteger id = new AtomicInteger();
+		this.pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+			Thread t = new Thread(r, "singleton-init-" + id.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * 单例的创建方法
+	 */
+	public interface SingletonFactory<T>
+	{
+		/**
+		 * @param container 容器，用来取得声明过的依赖
+		 */
+		T create(SingletonContainer container) throws Exception;
+	}
+
+	/**
+	 * 声明一个单例
+	 * @param name 名称
+	 * @param eager 是否在 start() 时立即加载
+	 * @param factory 创建方法
+	 * @param dependsOn 依赖的单例名称
+	 */
+	public synchronized <T> void register(String name, boolean eager, SingletonFactory<T> factory, String... dependsOn)
+	{
+		if (started)
+		{
+			throw new IllegalStateException("容器已启动，不能再声明单例：" + name);
+		}
+		if (holders.containsKey(name))
+		{
+			throw new IllegalArgumentException("单例已声明：" + name);
+		}
+		holders.put(name, new Holder(name, eager, factory, dependsOn));
+	}
+
+	/**
+	 * 检查依赖并并行初始化所有立即加载的单例及其依赖
+	 * @return 启动报告
+	 */
+	public synchronized StartupReport start()
+	{
+		if (started)
+		{
+			throw new IllegalStateException("容器已启动");
+		}
+		for (Holder holder : holders.values())
+		{
+			for (String dep : holder.dependsOn)
+			{
+				if (!holders.containsKey(dep))
+				{
+					throw new IllegalStateException("单例 " + holder.name + " 依赖的 " + dep + " 未声明");
+				}
+			}
+		}
+		List<Holder> order = topologicalOrder();
+		started = true;
+
+		// 立即加载的单例及其依赖
+		Set<Holder> boot = new HashSet<Holder>();
+		for (int i = order.size() - 1; i >= 0; i--)
+		{
+			Holder holder = order.get(i);
+			if (holder.eager || boot.contains(holder))
+			{
+				boot.add(holder);
+				for (String dep : holder.dependsOn)
+				{
+					boot.add(holders.get(dep));
+				}
+			}
+		}
+
+		bootNanos = System.nanoTime();
+		Map<Holder, CompletableFuture<Void>> futures = new HashMap<Holder, CompletableFuture<Void>>();
+		List<Holder> booted = new ArrayList<Holder>();
+		for (final Holder holder : order) // 依赖总在前面，它们的 future 已经创建
+		{
+			if (!boot.contains(holder))
+			{
+				continue;
+			}
+			CompletableFuture<?>[] deps = new CompletableFuture<?>[holder.dependsOn.length];
+			for (int i = 0; i < deps.length; i++)
+			{
+				deps[i] = futures.get(holders.get(holder.dependsOn[i]));
+			}
+			futures.put(holder, CompletableFuture.allOf(deps).thenRunAsync(holder::instance, pool));
+			booted.add(holder);
+		}
+		try
+		{
+			CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+		} catch (CompletionException e)
+		{
+			Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+		}
+		return new StartupReport(booted, System.nanoTime() - bootNanos);
+	}
+
+	/**
+	 * Kahn 算法排序，有环时抛出 IllegalStateException
+	 */
+	private List<Holder> topologicalOrder()
+	{
+		Map<Holder, Integer> pending = new HashMap<Holder, Integer>();
+		Map<String, List<Holder>> dependents = new HashMap<String, List<Holder>>();
+		Deque<Holder> ready = new ArrayDeque<Holder>();
+		for (Holder holder : holders.values())
+		{
+			pending.put(holder, holder.dependsOn.length);
+			for (String dep : holder.dependsOn)
+			{
+				dependents.computeIfAbsent(dep, k -> new ArrayList<Holder>()).add(holder);
+			}
+			if (holder.dependsOn.length == 0)
+			{
+				ready.add(holder);
+			}
+		}
+		List<Holder> order = new ArrayList<Holder>(holders.size());
+		while (!ready.isEmpty())
+		{
+			Holder holder = ready.poll();
+			order.add(holder);
+			for (Holder dependent : dependents.getOrDefault(holder.name, Collections.<Holder>emptyList()))
+			{
+				if (pending.merge(dependent, -1, Integer::sum) == 0)
+				{
+					ready.add(dependent);
+				}
+			}
+		}
+		if (order.size() != holders.size())
+		{
+			List<String> cycle = new ArrayList<String>();
+			for (Holder holder : holders.values())
+			{
+				if (pending.get(holder) > 0)
+				{
+					cycle.add(holder.name);
+				}
+			}
+			throw new IllegalStateException("单例之间存在循环依赖：" + cycle);
+		}
+		return order;
+	}
+
+	/**
+	 * 取得单例，尚未初始化时先初始化
+	 * @param name 名称
+	 * @return 单例
+	 * @throws IllegalStateException 容器尚未启动
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(String name)
+	{
+		if (!started)
+		{
+			throw new IllegalStateException("容器尚未启动，不能取得单例：" + name);
+		}
+		Holder holder = holders.get(name);
+		if (holder == null)
+		{
+			throw new IllegalArgumentException("单例未声明：" + name);
+		}
+		Holder current = creating.get();
+		if (current != null && !current.dependsOn(name))
+		{
+			throw new IllegalStateException("单例 " + current.name + " 使用了未声明的依赖 " + name);
+		}
+		return (T) holder.instance();
+	}
+
+	/** 单例是否已经初始化，容器尚未启动时返回 false */
+	public boolean isInitialized(String name)
+	{
+		if (!started)
+		{
+			return false;
+		}
+		Holder holder = holders.get(name);
+		return holder != null && holder.instance != null;
+	}
+
+	@Override
+	public void close()
+	{
+		pool.shutdownNow();
+	}
+
+	/**
+	 * 单例持有者
+	 */
+	private final class Holder
+	{
+		final String name;
+		final boolean eager;
+		final SingletonFactory<?> factory;
+		final String[] dependsOn;
+		volatile Object instance;
+		long startNanos;
+		long elapsedNanos;
+		String thread;
+
+		Holder(String name, boolean eager, SingletonFactory<?> factory, String[] dependsOn)
+		{
+			this.name = name;
+			this.eager = eager;
+			this.factory = factory;
+			this.dependsOn = dependsOn.clone();
+		}
+
+		boolean dependsOn(String dep)
+		{
+			for (String d : dependsOn)
+			{
+				if (d.equals(dep))
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+
+		Object instance()
+		{
+			Object result = instance;
+			if (result == null)
+			{
+				synchronized (this)
+				{
+					result = instance;
+					if (result == null)
+					{
+						instance = result = create();
+					}
+				}
+			}
+			return result;
+		}
+
+		private Object create()
+		{
+			Holder outer = creating.get();
+			creating.set(this);
+			long begin = System.nanoTime();
+			try
+			{
+				Object result = factory.create(SingletonContainer.this);
+				if (result == null)
+				{
+					throw new IllegalStateException("单例 " + name + " 的创建方法返回了 null");
+				}
+				return result;
+			} catch (RuntimeException e)
+			{
+				throw e;
+			} catch (Exception e)
+			{
+				throw new IllegalStateException("单例 " + name + " 初始化失败", e);
+			} finally
+			{
+				elapsedNanos = System.nanoTime() - begin;
+				startNanos = begin - bootNanos;
+				thread = Thread.currentThread().getName();
+				creating.set(outer);
+			}
+		}
+	}
+
+	/**
+	 * 启动报告
+	 */
+	public final class StartupReport
+	{
+		private final List<Holder> booted;
+		private final long totalNanos;
+		private final List<String> criticalPath = new ArrayList<String>();
+
+		StartupReport(List<Holder> booted, long totalNanos)
+		{
+			this.booted = booted;
+			this.totalNanos = totalNanos;
+			// 从最晚结束的单例出发，每次回溯到最晚结束的依赖
+			Holder last = null;
+			for (Holder holder : booted)
+			{
+				if (last == null || end(holder) > end(last))
+				{
+					last = holder;
+				}
+			}
+			while (last != null)
+			{
+				criticalPath.add(0, last.name);
+				Holder next = null;
+				for (String dep : last.dependsOn)
+				{
+					Holder h = holders.get(dep);
+					if (next == null || end(h) > end(next))
+					{
+						next = h;
+					}
+				}
+				last = next;
+			}
+		}
+
+		private long end(Holder holder)
+		{
+			return holder.startNanos + holder.elapsedNanos;
+		}
+
+		/** 启动总耗时（纳秒） */
+		public long getTotalNanos()
+		{
+			return totalNanos;
+		}
+
+		/** 各单例初始化耗时之和（纳秒），即串行初始化所需的时间 */
+		public long getSerialNanos()
+		{
+			long sum = 0;
+			for (Holder holder : booted)
+			{
+				sum += holder.elapsedNanos;
+			}
+			return sum;
+		}
+
+		/** 关键路径上的单例名称，从第一个开始 */
+		public List<String> getCriticalPath()
+		{
+			return Collections.unmodifiableList(criticalPath);
+		}
+
+		@Override
+		public String toString()
+		{
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("%-20s%12s%12s  %-20s%s%n", "Singleton", "start ms", "time ms", "thread", "dependsOn"));
+			for (Holder holder : booted)
+			{
+				sb.append(String.format("%-20s%12.1f%12.1f  %-20s%s%n", holder.name, holder.startNanos / 1e6,
+						holder.elapsedNanos / 1e6, holder.thread, Arrays.toString(holder.dependsOn)));
+			}
+			sb.append(String.format("total %.1f ms, serial %.1f ms%n", totalNanos / 1e6, getSerialNanos() / 1e6));
+			sb.append("critical path: ").append(String.join(" -> ", criticalPath));
+			return sb.toString();
+		}
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class SingletonContainerTest
+{
+	static String slow(String name, long millis) throws InterruptedException
+	{
+		Thread.sleep(millis); // 模拟耗时的初始化
+		return name;
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		try (SingletonContainer container = new SingletonContainer(4))
+		{
+			container.register("config", true, c -> slow("config", 50));
+			container.register("dataSource", true, c -> {
+				c.get("config");
+				return DataSourceEnum.DATASOURCE;
+			}, "config");
+			container.register("pool", true, c -> slow("pool", 100), "dataSource");
+			container.register("cache", true, c -> slow("cache", 80));
+			container.register("registry", true, c -> RegSingleton.getInstance(null), "cache");
+			container.register("service", true, c -> slow("service", 30), "pool", "registry");
+			container.register("report", false, c -> slow("report", 10), "service");
+
+			SingletonContainer.StartupReport report = container.start();
+			System.out.println(report);
+			System.out.println(report.getCriticalPath().equals(Arrays.asList("config", "dataSource", "pool", "service"))); // 返回 true
+			System.out.println(report.getTotalNanos() < report.getSerialNanos()); // 返回 true
+			System.out.println(container.get("dataSource") == DataSourceEnum.DATASOURCE); // 返回 true
+			System.out.println(!container.isInitialized("report")); // 返回 true，延迟加载
+			System.out.println("report".equals(container.get("report"))); // 返回 true
+		}
+
+		// 启动之前不能取得单例
+		try (SingletonContainer container = new SingletonContainer(1))
+		{
+			container.register("a", false, c -> "a");
+			System.out.println(!container.isInitialized("a")); // 返回 true
+			container.get("a");
+			System.out.println(false);
+		} catch (IllegalStateException e)
+		{
+			System.out.println(e.getMessage().contains("尚未启动")); // 返回 true
+		}
+
+		// 循环依赖
+		try (SingletonContainer container = new SingletonContainer(1))
+		{
+			container.register("a", true, c -> "a", "b");
+			container.register("b", true, c -> "b", "a");
+			container.start();
+			System.out.println(false);
+		} catch (IllegalStateException e)
+		{
+			System.out.println(e.getMessage().contains("循环依赖")); // 返回 true
+		}
+
+		// 未声明的依赖
+		try (SingletonContainer container = new SingletonContainer(1))
+		{
+			container.register("a", false, c -> "a");
+			container.register("b", false, c -> c.get("a"));
+			container.start();
+			container.get("b");
+			System.out.println(false);
+		} catch (IllegalStateException e)
+		{
+			System.out.println(e.getMessage().contains("未声明的依赖")); // 返回 true
+		}
+	}
+}
@@ -0,0 +1,627 @@
+package com.cqupt.mauger.output;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.cqupt.mauger.benchmark.BenchmarkRunner;
+
+/**
+ * 输出
+ * 	各模式示例中的 show 方法（showSortResult、productMethod、show、showProduct、doSomething）通过 OutputSink.get() 输出，
+ * 	不再直接调用 System.out.println，输出方式可以替换。
+ *
+ * 实现：
+ * 	1）格式化：每个线程一个可复用的 StringBuilder，整数直接追加为字符，不拼接临时字符串。
+ * 	2）数组：printArray 按 Arrays.toString 的格式逐段输出，每积累 FLUSH_CHARS 个字符写出一次，不生成完整的大字符串。
+ * 	3）两种实现：
+ * 	       systemOut()：同步写到 System.out，为默认实现，与原来的输出完全相同。
+ * 	       async(channel)：异步批量写。调用方在锁内把字符编码进预先分配的字节块，写满的块交给写线程；
+ * 	       写线程一次取出多个块，通过 GatheringByteChannel 一次系统调用写出，写完的块回收复用。
+ * 	       空闲时写线程每毫秒取走未写满的块，输出延迟不超过 1 毫秒；所有块都在等待写出时调用方阻塞（背压）。
+ * 	4）启动参数 -Doutput.sink=async 时默认使用异步实现写到标准输出，JVM 退出前自动刷新。
+ *
+ * 注意事项：
+ * 	每次 println / printArray 的输出是完整的一条，不会与其他线程的输出交错，行尾为 System.lineSeparator()。
+ * 	set() 会关闭被替换的输出（异步实现的写线程随之退出），被替换的输出不能再使用：
+ * 	异步实现关闭后的输出抛出 IllegalStateException，不会写进没有线程取走的字节块。
+ * 	异步实现与 System.out 的直接输出之间没有先后保证，需要时先调用 flush()。
+ *
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+public abstract class OutputSink implements Closeable
+{
+	/** 数组逐段输出时每段的字符数 */
+	static final int FLUSH_CHARS = 8192;
+
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+
+	private static volatile OutputSink current = "async".equals(System.getProperty("output.sink")) ? async() : systemOut();
+
+	private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(256));
+	private final ReentrantLock recordLock = new ReentrantLock();
+
+	/** 当前使用的输出 */
+	public static OutputSink get()
+	{
+		return current;
+	}
+
+	/**
+	 * 替换当前使用的输出，原输出会被刷新并关闭
+	 */
+	public static void set(OutputSink sink)
+	{
+		OutputSink previous = current;
+		current = sink;
+		if (previous != sink)
+		{
+			previous.close();
+		}
+	}
+
+	/** 同步写到 System.out */
+	public static OutputSink systemOut()
+	{
+		return new PrintStreamSink(System.out);
+	}
+
+	/**
+	 * 异步写到标准输出，JVM 退出前自动刷新
+	 */
+	public static OutputSink async()
+	{
+		final OutputSink sink = async(new FileOutputStream(FileDescriptor.out).getChannel(), Charset.defaultCharset(), 4096, 256);
+		Runtime.getRuntime().addShutdownHook(new Thread(sink::flush, "output-sink-flush"));
+		return sink;
+	}
+
+	/**
+	 * 异步写到 channel
+	 * @param channel 目标通道，支持 GatheringByteChannel 时批量写出
+	 * @param charset 字符集
+	 * @param chunkSize 每个字节块的大小
+	 * @param chunks 字节块的个数
+	 */
+	public static OutputSink async(WritableByteChannel channel, Charset charset, int chunkSize, int chunks)
+	{
+		return new ChannelSink(channel, charset, chunkSize, chunks);
+	}
+
+	/**
+	 * 输出一行
+	 */
+	public final void println(CharSequence line)
+	{
+		StringBuilder sb = buffer();
+		sb.append(line).append(LINE_SEPARATOR);
+		record(sb);
+	}
+
+	/**
+	 * 输出一行 prefix + value，不拼接临时字符串
+	 */
+	public final void println(String prefix, String value)
+	{
+		StringBuilder sb = buffer();
+		sb.append(prefix).append(value).append(LINE_SEPARATOR);
+		record(sb);
+	}
+
+	/**
+	 * 以 Arrays.toString 的格式输出数组并换行，大数组逐段输出
+	 */
+	public final void printArray(int[] array)
+	{
+		StringBuilder sb = buffer();
+		if (array == null)
+		{
+			sb.append("null").append(LINE_SEPARATOR);
+			record(sb);
+			return;
+		}
+		recordLock.lock();
+		try
+		{
+			sb.append('[');
+			for (int i = 0; i < array.length; i++)
+			{
+				if (i > 0)
+				{
+					sb.append(", ");
+				}
+				sb.append(array[i]);
+				if (sb.length() >= FLUSH_CHARS)
+				{
+					write(sb);
+					sb.setLength(0);
+				}
+			}
+			sb.append(']').append(LINE_SEPARATOR);
+			write(sb);
+		} finally
+		{
+			recordLock.unlock();
+		}
+	}
+
+	private StringBuilder buffer()
+	{
+		StringBuilder sb = buffers.get();
+		if (sb.capacity() > 4 * FLUSH_CHARS)
+		{
+			sb = new StringBuilder(256); // 不长期持有超长行的缓冲区
+			buffers.set(sb);
+		}
+		sb.setLength(0);
+		return sb;
+	}
+
+	private void record(StringBuilder sb)
+	{
+		recordLock.lock();
+		try
+		{
+			write(sb);
+		} finally
+		{
+			recordLock.unlock();
+		}
+	}
+
+	/**
+	 * 写出字符，调用方持有记录锁
+	 */
+	protected abstract void write(StringBuilder chars);
+
+	/**
+	 * 写出所有已输出的内容
+	 */
+	public abstract void flush();
+
+	@Override
+	public void close()
+	{
+		flush();
+	}
+}
+
+
+/**
+ * 同步写到 PrintStream
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class PrintStreamSink extends OutputSink
+{
+	private final PrintStream out;
+
+	PrintStreamSink(PrintStream out)
+	{
+		this.out = out;
+	}
+
+	@Override
+	protected void write(StringBuilder chars)
+	{
+		out.append(chars);
+	}
+
+	@Override
+	public void flush()
+	{
+		out.flush();
+	}
+}
+
+
+/**
+ * 异步批量写到通道
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+final class ChannelSink extends OutputSink
+{
+	private static final int MAX_BATCH = 64;
+
+	private final WritableByteChannel channel;
+	private final CharsetEncoder encoder;
+	private final BlockingQueue<ByteBuffer> free;
+	private final BlockingQueue<ByteBuffer> ready;
+	private final ReentrantLock chunkLock = new ReentrantLock();
+	private ByteBuffer chunk; // 正在填充的块，由 chunkLock 保护
+	private char[] chars = new char[1024];
+	private CharBuffer charBuffer = CharBuffer.wrap(chars);
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong bytesWritten = new AtomicLong();
+	private final AtomicLong writes = new AtomicLong();
+	private final Thread writer;
+	private volatile boolean running = true;
+
+	ChannelSink(WritableByteChannel channel, Charset charset, int chunkSize, int chunks)
+	{
+		if (chunkSize < 16 || chunks < 2)
+		{
+			throw new IllegalArgumentException("字节块配置错误");
+		}
+		this.channel = channel;
+		this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.free = new ArrayBlockingQueue<ByteBuffer>(chunks);
+		this.ready = new ArrayBlockingQueue<ByteBuffer>(chunks);
+		for (int i = 0; i < chunks; i++)
+		{
+			free.add(ByteBuffer.allocateDirect(chunkSize));
+		}
+		this.writer = new Thread(this::writeLoop, "output-sink-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	@Override
+	protected void write(StringBuilder sb)
+	{
+		int length = sb.length();
+		chunkLock.lock();
+		try
+		{
+			if (!running)
+			{
+				throw new IllegalStateException("输出已关闭");
+			}
+			if (chars.length < length)
+			{
+				chars = new char[Math.max(length, chars.length * 2)];
+				charBuffer = CharBuffer.wrap(chars);
+			}
+			sb.getChars(0, length, chars, 0);
+			charBuffer.clear().limit(length);
+			encoder.reset();
+			while (true)
+			{
+				if (chunk == null)
+				{
+					chunk = takeFree();
+				}
+				CoderResult result = encoder.encode(charBuffer, chunk, true);
+				if (result.isOverflow())
+				{
+					submit();
+					continue;
+				}
+				result = encoder.flush(chunk);
+				if (result.isOverflow())
+				{
+					submit();
+					continue;
+				}
+				break;
+			}
+			if (!chunk.hasRemaining())
+			{
+				submit();
+			}
+		} finally
+		{
+			chunkLock.unlock();
+		}
+	}
+
+	private ByteBuffer takeFree()
+	{
+		boolean interrupted = false;
+		try
+		{
+			while (true)
+			{
+				try
+				{
+					return free.take(); // 所有块都在等待写出时阻塞
+				} catch (InterruptedException e)
+				{
+					interrupted = true;
+				}
+			}
+		} finally
+		{
+			if (interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * 把正在填充的块交给写线程，调用方持有 chunkLock
+	 */
+	private void submit()
+	{
+		if (chunk != null && chunk.position() > 0)
+		{
+			chunk.flip();
+			inFlight.incrementAndGet();
+			ready.add(chunk); // 块的总数等于队列容量，不会失败
+			chunk = null;
+		}
+	}
+
+	private void writeLoop()
+	{
+		List<ByteBuffer> batch = new ArrayList<ByteBuffer>(MAX_BATCH);
+		ByteBuffer[] array = new ByteBuffer[MAX_BATCH];
+		while (running || inFlight.get() > 0)
+		{
+			ByteBuffer first;
+			try
+			{
+				first = ready.poll(1, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e)
+			{
+				continue;
+			}
+			if (first == null)
+			{
+				if (chunkLock.tryLock())
+				{
+					try
+					{
+						submit(); // 空闲时取走未写满的块
+					} finally
+					{
+						chunkLock.unlock();
+					}
+				}
+				continue;
+			}
+			batch.add(first);
+			ready.drainTo(batch, MAX_BATCH - 1);
+			int n = batch.size();
+			batch.toArray(array);
+			try
+			{
+				if (channel instanceof GatheringByteChannel)
+				{
+					GatheringByteChannel gathering = (GatheringByteChannel) channel;
+					while (array[n - 1].hasRemaining())
+					{
+						bytesWritten.addAndGet(gathering.write(array, 0, n));
+					}
+				}
+				else
+				{
+					for (int i = 0; i < n; i++)
+					{
+						while (array[i].hasRemaining())
+						{
+							bytesWritten.addAndGet(channel.write(array[i]));
+						}
+					}
+				}
+				writes.incrementAndGet();
+			} catch (IOException e)
+			{
+				e.printStackTrace(); // 丢弃这一批，继续写后面的输出
+			}
+			for (int i = 0; i < n; i++)
+			{
+				array[i].clear();
+				free.add(array[i]);
+				array[i] = null;
+			}
+			inFlight.addAndGet(-n);
+			batch.clear();
+		}
+	}
+
+	@Override
+	public void flush()
+	{
+		chunkLock.lock();
+		try
+		{
+			submit();
+		} finally
+		{
+			chunkLock.unlock();
+		}
+		while (inFlight.get() > 0 && writer.isAlive())
+		{
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		chunkLock.lock();
+		try
+		{
+			running = false; // 持有 chunkLock 时修改，之后的 write 一定能看到
+			submit();
+		} finally
+		{
+			chunkLock.unlock();
+		}
+		try
+		{
+			writer.join(); // 写线程写完已提交的块后退出
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** 写线程是否仍在运行 */
+	boolean isWriterAlive()
+	{
+		return writer.isAlive();
+	}
+
+	/** 已写出的字节数 */
+	long getBytesWritten()
+	{
+		return bytesWritten.get();
+	}
+
+	/** 写出的次数，每次写出一批字节块 */
+	long getWrites()
+	{
+		return writes.get();
+	}
+}
+
+
+/**
+ * 测试类
+ * @author Mauger
+ * @date 2026年10月17日
+ * @version 1.0
+ */
+class OutputSinkTest
+{
+	/**
+	 * 丢弃所有字节的通道
+	 */
+	static final class NullChannel implements GatheringByteChannel
+	{
+		public int write(ByteBuffer src)
+		{
+			int n = src.remaining();
+			src.position(src.limit());
+			return n;
+		}
+
+		public long write(ByteBuffer[] srcs, int offset, int length)
+		{
+			long n = 0;
+			for (int i = offset; i < offset + length; i++)
+			{
+				n += write(srcs[i]);
+			}
+			return n;
+		}
+
+		public long write(ByteBuffer[] srcs)
+		{
+			return write(srcs, 0, srcs.length);
+		}
+
+		public boolean isOpen()
+		{
+			return true;
+		}
+
+		public void close() {}
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		// 4 个线程各输出 10000 行，再输出一个大数组
+		Path file = Files.createTempFile("output-sink", ".txt");
+		final int[] big = new int[1000000];
+		for (int i = 0; i < big.length; i++)
+		{
+			big[i] = i * 7 - 3000000;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE))
+		{
+			final OutputSink sink = OutputSink.async(channel, StandardCharsets.UTF_8, 4096, 64);
+			Thread[] threads = new Thread[4];
+			for (int t = 0; t < threads.length; t++)
+			{
+				threads[t] = new Thread(() -> {
+					for (int i = 0; i < 10000; i++)
+					{
+						sink.println("名称：", "宝马汽车");
+					}
+				});
+				threads[t].start();
+			}
+			sink.printArray(big);
+			for (Thread t : threads)
+			{
+				t.join();
+			}
+			sink.close();
+			System.out.println(((ChannelSink) sink).getWrites() < ((ChannelSink) sink).getBytesWritten() / 4096); // 返回 true，批量写出
+		}
+		List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		Files.delete(file);
+		String expected = Arrays.toString(big);
+		int named = 0;
+		boolean arrayFound = false;
+		for (String line : lines)
+		{
+			if (line.equals("名称：宝马汽车"))
+			{
+				named++;
+			}
+			else
+			{
+				arrayFound |= line.equals(expected);
+			}
+		}
+		System.out.println(named == 40000 && arrayFound && lines.size() == 40001); // 返回 true
+
+		// 每次输出的分配与耗时
+		final OutputSink async = OutputSink.async(new NullChannel(), StandardCharsets.UTF_8, 4096, 256);
+		final PrintStream nullOut = new PrintStream(OutputStream.nullOutputStream(), false, "UTF-8");
+		final String name = "宝马汽车";
+		BenchmarkRunner runner = new BenchmarkRunner(500, 1000, 256);
+		BenchmarkRunner.printHeader();
+		System.out.println(runner.run("println(concat)", 1, () -> {
+			nullOut.println("名称：" + name);
+			return nullOut;
+		}));
+		System.out.println(runner.run("async.println", 1, () -> {
+			async.println("名称：", name);
+			return async;
+		}));
+		async.close();
+
+		// 替换输出时关闭原输出，异步实现的写线程退出
+		OutputSink replaced = OutputSink.async(new NullChannel(), StandardCharsets.UTF_8, 4096, 4);
+		OutputSink.set(replaced);
+		OutputSink.get().println("名称：", name);
+		OutputSink.set(OutputSink.systemOut());
+		System.out.println(!((ChannelSink) replaced).isWriterAlive()); // 返回 true
+		try
+		{
+			replaced.println("名称：", name);
+			System.out.println(false);
+		} catch (IllegalStateException e)
+		{
+			System.out.println(true); // 返回 true，关闭后的输出不再缓存
+		}
+	}
+}